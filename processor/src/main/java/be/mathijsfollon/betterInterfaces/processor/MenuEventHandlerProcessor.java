@@ -0,0 +1,227 @@
+package be.mathijsfollon.betterInterfaces.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code MenuHandlerRegistry} for every {@code MenuEventListener} class with
+ * {@code @MenuEventHandler} methods, so the event manager can register handlers without reflection
+ * and invoke them with direct calls.
+ *
+ * Classes that cannot be called from generated code (private handlers, private or local classes,
+ * generic classes) are skipped and keep using the reflection fallback at runtime.
+ */
+@SupportedAnnotationTypes(MenuEventHandlerProcessor.HANDLER_ANNOTATION)
+public class MenuEventHandlerProcessor extends AbstractProcessor {
+    static final String HANDLER_ANNOTATION = "be.mathijsfollon.betterInterfaces.api.events.MenuEventHandler";
+    private static final String LISTENER_TYPE = "be.mathijsfollon.betterInterfaces.api.events.MenuEventListener";
+    private static final String EVENT_TYPE = "be.mathijsfollon.betterInterfaces.api.events.MenuEvent";
+    private static final String REGISTRY_TYPE = "be.mathijsfollon.betterInterfaces.api.events.MenuHandlerRegistry";
+    private static final String SUFFIX = "_MenuHandlers";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement handlerAnnotation = elements.getTypeElement(HANDLER_ANNOTATION);
+        TypeElement listenerType = elements.getTypeElement(LISTENER_TYPE);
+        TypeElement eventType = elements.getTypeElement(EVENT_TYPE);
+        if (handlerAnnotation == null || listenerType == null || eventType == null) {
+            return false;
+        }
+
+        // Group the annotated methods by the class declaring them
+        Map<TypeElement, List<ExecutableElement>> byType = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(handlerAnnotation)) {
+            if (element.getKind() != ElementKind.METHOD || !(element.getEnclosingElement() instanceof TypeElement type)) {
+                continue;
+            }
+            byType.computeIfAbsent(type, k -> new ArrayList<>()).add((ExecutableElement) element);
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : byType.entrySet()) {
+            TypeElement type = entry.getKey();
+            if (!types.isAssignable(types.erasure(type.asType()), types.erasure(listenerType.asType()))) {
+                // Not a listener, the event manager never registers it
+                continue;
+            }
+            if (!isAccessibleType(type)) {
+                note(type, "not accessible from generated code, handlers are registered with reflection");
+                continue;
+            }
+
+            List<Handler> handlers = new ArrayList<>();
+            boolean complete = true;
+            for (ExecutableElement method : entry.getValue()) {
+                if (method.getParameters().size() != 1) {
+                    continue;
+                }
+                TypeMirror parameter = types.erasure(method.getParameters().get(0).asType());
+                if (!types.isAssignable(parameter, types.erasure(eventType.asType()))) {
+                    continue;
+                }
+                if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                    complete = false;
+                    break;
+                }
+                handlers.add(new Handler(method, parameter.toString(), handlerAnnotation));
+            }
+
+            // Generated registries must be complete, otherwise reflection is used for the whole class
+            if (!complete) {
+                note(type, "has private @MenuEventHandler methods, handlers are registered with reflection");
+                continue;
+            }
+            if (!handlers.isEmpty()) {
+                write(type, handlers);
+            }
+        }
+        return false;
+    }
+
+    private boolean isAccessibleType(TypeElement type) {
+        if (!type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        Element current = type;
+        while (current instanceof TypeElement typeElement) {
+            if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            current = typeElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void write(TypeElement type, List<Handler> handlers) {
+        PackageElement packageElement = elements.getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        if (!generated.add(qualifiedName)) {
+            return;
+        }
+
+        String listenerName = type.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        source.append("public final class ").append(simpleName)
+                .append(" implements ").append(REGISTRY_TYPE).append('<').append(listenerName).append("> {\n");
+        source.append("    @Override\n");
+        source.append("    public void register(").append(listenerName).append(" listener, ")
+                .append(REGISTRY_TYPE).append(".Sink sink) {\n");
+        for (Handler handler : handlers) {
+            String target = handler.isStatic() ? listenerName : "listener";
+            source.append("        sink.accept(")
+                    .append(handler.eventType()).append(".class, ")
+                    .append(handler.priority()).append(", ")
+                    .append(handler.ignoreCancelled()).append(", \"")
+                    .append(handler.name()).append("\", event -> ")
+                    .append(target).append('.').append(handler.name())
+                    .append("((").append(handler.eventType()).append(") event));\n");
+        }
+        source.append("    }\n");
+        source.append("}\n");
+
+        try {
+            JavaFileObject file = filer.createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Could not write " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private void note(TypeElement type, String message) {
+        messager.printMessage(Diagnostic.Kind.NOTE, type.getQualifiedName() + " " + message, type);
+    }
+
+    /**
+     * A single handler method with its annotation values.
+     */
+    private record Handler(String name, String eventType, int priority, boolean ignoreCancelled, boolean isStatic) {
+        private Handler(ExecutableElement method, String eventType, TypeElement annotation) {
+            this(method.getSimpleName().toString(), eventType,
+                    intValue(method, annotation, "priority", 0),
+                    booleanValue(method, annotation, "ignoreCancelled", false),
+                    method.getModifiers().contains(Modifier.STATIC));
+        }
+
+        private static int intValue(ExecutableElement method, TypeElement annotation, String name, int defaultValue) {
+            AnnotationValue value = value(method, annotation, name);
+            return value != null ? (Integer) value.getValue() : defaultValue;
+        }
+
+        private static boolean booleanValue(ExecutableElement method, TypeElement annotation, String name, boolean defaultValue) {
+            AnnotationValue value = value(method, annotation, name);
+            return value != null ? (Boolean) value.getValue() : defaultValue;
+        }
+
+        private static AnnotationValue value(ExecutableElement method, TypeElement annotation, String name) {
+            for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+                if (!mirror.getAnnotationType().asElement().equals(annotation)) {
+                    continue;
+                }
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals(name)) {
+                        return entry.getValue();
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
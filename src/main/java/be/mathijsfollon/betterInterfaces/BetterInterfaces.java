@@ -1,18 +1,58 @@
 package be.mathijsfollon.betterInterfaces;
 
+import be.mathijsfollon.betterInterfaces.api.MenuOpenQueue;
 import be.mathijsfollon.betterInterfaces.api.MenuService;
+import be.mathijsfollon.betterInterfaces.events.MenuEventPool;
+import be.mathijsfollon.betterInterfaces.menu.ClickThrottle;
+import be.mathijsfollon.betterInterfaces.metrics.MetricsHttpServer;
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
 import be.mathijsfollon.betterInterfaces.service.BetterInterfacesMenuService;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
-public final class BetterInterfaces extends JavaPlugin {
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+public final class BetterInterfaces extends JavaPlugin implements Listener, CommandExecutor {
     private MenuService service;
+    private MetricsHttpServer metricsServer;
 
     @Override
     public void onEnable() {
-        service = new BetterInterfacesMenuService();
+        saveDefaultConfig();
+
+        // Flight Recorder settings enabling the menu events, for use with JFR.start settings=...
+        if (!new File(getDataFolder(), "betterinterfaces.jfc").exists()) {
+            saveResource("betterinterfaces.jfc", false);
+        }
+
+        service = new BetterInterfacesMenuService(this, loadClickThrottleSettings(), getConfig().getInt("tracing.capacity", 4096));
+        service.getTracer().setEnabled(getConfig().getBoolean("tracing.enabled", false));
+        service.getOpenQueue().setBudgetMicros(getConfig().getLong("menu-opens.budget-micros", MenuOpenQueue.DEFAULT_BUDGET_MICROS));
+        MenuEventPool.of(service.getEventManager()).setEnabled(getConfig().getBoolean("events.pooling", false));
+        MenuEventPool.of(service.getEventManager()).setDebug(getConfig().getBoolean("events.pool-debug", false));
         Bukkit.getServicesManager().register(MenuService.class, service, this, ServicePriority.High);
+        Bukkit.getPluginManager().registerEvents(this, this);
+        startMetricsServer();
+
+        PluginCommand command = getCommand("betterinterfaces");
+        if (command != null) {
+            command.setExecutor(this);
+        }
         
         // Initialize examples (temporary integration)
         Examples examples = new Examples(this, service);
@@ -21,6 +61,91 @@ public final class BetterInterfaces extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+            metricsServer = null;
+        }
         Bukkit.getServicesManager().unregister(this);
     }
+
+    private void startMetricsServer() {
+        if (!getConfig().getBoolean("metrics.enabled", false)) {
+            return;
+        }
+
+        String host = getConfig().getString("metrics.host", "127.0.0.1");
+        int port = getConfig().getInt("metrics.port", 9464);
+        try {
+            metricsServer = new MetricsHttpServer(service.getMetrics(), host, port);
+            metricsServer.start();
+            getLogger().info("Serving menu metrics on http://" + host + ":" + port + "/metrics");
+        } catch (IOException | IllegalArgumentException e) {
+            getLogger().warning("Could not start metrics endpoint on " + host + ":" + port + ": " + e.getMessage());
+            metricsServer = null;
+        }
+    }
+
+    /**
+     * Handles the /betterinterfaces command.
+     *
+     * Usage:
+     * - /betterinterfaces trace dump - Writes all recorded menu trace spans to a file
+     */
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length != 2 || !args[0].equalsIgnoreCase("trace") || !args[1].equalsIgnoreCase("dump")) {
+            sender.sendMessage("Usage: /" + label + " trace dump");
+            return true;
+        }
+
+        Path file = getDataFolder().toPath().resolve("traces")
+                .resolve("trace-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".txt");
+        MenuTracer tracer = service.getTracer();
+
+        // Spans are copied out of the ring buffer, so writing the file can happen off the main thread
+        MenuScheduler scheduler = MenuScheduler.of(this);
+        scheduler.runAsync(() -> {
+            String reply;
+            try {
+                int spans = tracer.dump(file);
+                reply = "Wrote " + spans + " trace spans to " + file;
+            } catch (IOException e) {
+                reply = "Could not write trace dump: " + e.getMessage();
+                getLogger().warning("Could not write trace dump to " + file + ": " + e.getMessage());
+            }
+
+            // Reply on the thread owning the sender, not on the async thread
+            String message = reply;
+            if (sender instanceof Player player) {
+                scheduler.run(player, () -> player.sendMessage(message));
+            } else {
+                scheduler.runGlobal(() -> sender.sendMessage(message));
+            }
+        });
+        return true;
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        service.getClickThrottle().forget(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Reads the click throttle settings from the config.
+     *
+     * @return the click throttle settings
+     */
+    private ClickThrottle.Settings loadClickThrottleSettings() {
+        ConfigurationSection section = getConfig().getConfigurationSection("click-throttle");
+        if (section == null) {
+            return ClickThrottle.Settings.defaults();
+        }
+
+        return ClickThrottle.Settings.builder()
+                .enabled(section.getBoolean("enabled", true))
+                .playerLimit(section.getInt("player.burst", 20), section.getDouble("player.clicks-per-second", 10))
+                .menuLimit(section.getInt("menu.burst", 12), section.getDouble("menu.clicks-per-second", 8))
+                .slotDebounceMillis(section.getLong("slot-debounce-millis", 50))
+                .build();
+    }
 }
@@ -2,6 +2,7 @@ package be.mathijsfollon.betterInterfaces;
 
 import be.mathijsfollon.betterInterfaces.api.MenuDefinition;
 import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenPriority;
 import be.mathijsfollon.betterInterfaces.api.MenuService;
 import be.mathijsfollon.betterInterfaces.api.exceptions.MenuNotRegisteredException;
 import be.mathijsfollon.betterInterfaces.example.examples.AdvancedConfirmationMenu;
@@ -13,6 +14,7 @@ import be.mathijsfollon.betterInterfaces.example.examples.DynamicMenuExample;
 import be.mathijsfollon.betterInterfaces.example.examples.PageableMenuExample;
 import be.mathijsfollon.betterInterfaces.example.menus.ShowcaseMenu;
 import be.mathijsfollon.betterInterfaces.menu.MenuOpenContext;
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -108,14 +110,17 @@ public class Examples implements Listener, CommandExecutor, TabCompleter {
         MenuOpenContextStore ctx = new MenuOpenContext();
         ctx.put("plugin", plugin);
 
-        // Open the showcase menu after a short delay to let the player fully join
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            try {
-                service.openMenu(player, SHOWCASE_MENU, ctx);
-            } catch (MenuNotRegisteredException e) {
-                plugin.getLogger().warning("Showcase menu not registered!");
-            }
-        }, 20L); // 1 second delay
+        // Open the showcase menu after a short delay to let the player fully join.
+        // Nobody clicked for it, so it waits for the open budget: after a restart, the menus of all
+        // reconnecting players are spread over several ticks instead of opening in the same one.
+        MenuScheduler.of(plugin).runLater(player, () -> service
+            .openMenuAsync(player, SHOWCASE_MENU, ctx, MenuOpenPriority.AUTOMATIC)
+            .exceptionally(error -> {
+                if (error instanceof MenuNotRegisteredException) {
+                    plugin.getLogger().warning("Showcase menu not registered!");
+                }
+                return null;
+            }), 20L); // 1 second delay
     }
 
     /**
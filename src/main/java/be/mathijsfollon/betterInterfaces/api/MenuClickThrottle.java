@@ -0,0 +1,52 @@
+package be.mathijsfollon.betterInterfaces.api;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Admits or rejects menu clicks before any click event is built.
+ * Rejected clicks are cancelled and never reach handlers.
+ */
+public interface MenuClickThrottle {
+    /**
+     * Outcome of a click admission check.
+     */
+    enum Verdict {
+        ADMITTED,
+        PLAYER_RATE_LIMITED,
+        MENU_RATE_LIMITED,
+        DEBOUNCED
+    }
+
+    /**
+     * Checks whether a click may be handled.
+     *
+     * @param playerId the player who clicked
+     * @param menuId   the id of the menu that was clicked (can be null)
+     * @param slot     the clicked slot
+     * @return the verdict
+     */
+    Verdict admit(UUID playerId, String menuId, int slot);
+
+    /**
+     * Forgets all state kept for a player, e.g. when they leave the server.
+     *
+     * @param playerId the player
+     */
+    void forget(UUID playerId);
+
+    /**
+     * Gets the number of clicks that received the given verdict.
+     *
+     * @param verdict the verdict
+     * @return the count
+     */
+    long getCount(Verdict verdict);
+
+    /**
+     * Gets a snapshot of all counters.
+     *
+     * @return the count per verdict
+     */
+    Map<Verdict, Long> getCounters();
+}
@@ -0,0 +1,12 @@
+package be.mathijsfollon.betterInterfaces.api;
+
+/**
+ * Priority of a menu open queued by {@link MenuService#openMenuAsync(org.bukkit.entity.Player, String, MenuOpenContextStore, MenuOpenPriority)}.
+ * Queued opens are admitted within a time budget per tick; interactive opens are admitted before automatic ones.
+ */
+public enum MenuOpenPriority {
+    /** An open the player asked for, e.g. by clicking or running a command. Opens right away when possible. */
+    INTERACTIVE,
+    /** An open the server started on its own, e.g. a menu shown on join. Always waits for the budget. */
+    AUTOMATIC
+}
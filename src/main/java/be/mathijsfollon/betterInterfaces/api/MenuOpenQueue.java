@@ -0,0 +1,34 @@
+package be.mathijsfollon.betterInterfaces.api;
+
+/**
+ * Queue admitting menu opens requested through {@link MenuService#openMenuAsync(org.bukkit.entity.Player, String, MenuOpenContextStore)}.
+ * Queued opens are admitted on the thread owning their player within a time budget per tick, interactive opens first.
+ */
+public interface MenuOpenQueue {
+    /**
+     * Default time budget for queued opens per tick, in microseconds.
+     */
+    long DEFAULT_BUDGET_MICROS = 2_000L;
+
+    /**
+     * Sets the time spent opening queued menus per tick.
+     * Opening a menu that was started within the budget is never interrupted, so a tick can go over by one open.
+     *
+     * @param micros the budget in microseconds, or 0 to open all queued menus every tick
+     */
+    void setBudgetMicros(long micros);
+
+    /**
+     * Gets the time spent opening queued menus per tick.
+     *
+     * @return the budget in microseconds, 0 if unlimited
+     */
+    long getBudgetMicros();
+
+    /**
+     * Gets the number of opens that are queued and not admitted yet.
+     *
+     * @return the number of pending opens
+     */
+    long pending();
+}
@@ -2,9 +2,12 @@ package be.mathijsfollon.betterInterfaces.api;
 
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
 import be.mathijsfollon.betterInterfaces.api.exceptions.MenuNotRegisteredException;
+import be.mathijsfollon.betterInterfaces.metrics.MenuMetrics;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 import org.bukkit.entity.Player;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface MenuService {
     void registerMenu(MenuDefinition definition);
@@ -27,5 +30,98 @@ public interface MenuService {
      */
     MenuSession openMenu(Player player, String id, MenuOpenContextStore ctx, MenuSession currentSession) throws MenuNotRegisteredException;
 
+    /**
+     * Opens a menu from any thread, e.g. from an async database callback.
+     * Opens requested off the thread owning the player are queued and done on that thread on the next tick.
+     *
+     * @param player the player to open the menu for
+     * @param id the menu ID to open
+     * @param ctx the menu open context
+     * @return a future completed with the new menu session once the menu is open
+     */
+    default CompletableFuture<MenuSession> openMenuAsync(Player player, String id, MenuOpenContextStore ctx) {
+        return openMenuAsync(player, id, ctx, null, MenuOpenPriority.INTERACTIVE);
+    }
+
+    /**
+     * Opens a menu with navigation support from any thread, see {@link #openMenuAsync(Player, String, MenuOpenContextStore)}.
+     *
+     * @param player the player to open the menu for
+     * @param id the menu ID to open
+     * @param ctx the menu open context
+     * @param currentSession the current menu session (will become previous session)
+     * @return a future completed with the new menu session once the menu is open
+     */
+    default CompletableFuture<MenuSession> openMenuAsync(Player player, String id, MenuOpenContextStore ctx, MenuSession currentSession) {
+        return openMenuAsync(player, id, ctx, currentSession, MenuOpenPriority.INTERACTIVE);
+    }
+
+    /**
+     * Opens a menu from any thread with a priority, see {@link #openMenuAsync(Player, String, MenuOpenContextStore)}.
+     * Automatic opens, e.g. a menu shown on join, are always queued and admitted within the open budget per tick.
+     *
+     * @param player the player to open the menu for
+     * @param id the menu ID to open
+     * @param ctx the menu open context
+     * @param priority the priority of the open
+     * @return a future completed with the new menu session once the menu is open
+     */
+    default CompletableFuture<MenuSession> openMenuAsync(Player player, String id, MenuOpenContextStore ctx, MenuOpenPriority priority) {
+        return openMenuAsync(player, id, ctx, null, priority);
+    }
+
+    /**
+     * Opens a menu with navigation support from any thread with a priority.
+     *
+     * @param player the player to open the menu for
+     * @param id the menu ID to open
+     * @param ctx the menu open context
+     * @param currentSession the current menu session (will become previous session)
+     * @param priority the priority of the open
+     * @return a future completed with the new menu session once the menu is open; by default a failed future,
+     *         for services that cannot open menus from other threads
+     */
+    default CompletableFuture<MenuSession> openMenuAsync(Player player, String id, MenuOpenContextStore ctx, MenuSession currentSession,
+                                                         MenuOpenPriority priority) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException(
+                getClass().getName() + " does not support opening menus from other threads"));
+    }
+
     MenuEventManager getEventManager();
+
+    /**
+     * Gets the click throttle that admits clicks in all menus opened through this service.
+     *
+     * @return the click throttle, or null if this service does not throttle clicks
+     */
+    default MenuClickThrottle getClickThrottle() {
+        return null;
+    }
+
+    /**
+     * Gets the statistics of all menus opened through this service.
+     *
+     * @return the menu metrics, or null if this service does not keep any
+     */
+    default MenuMetrics getMetrics() {
+        return null;
+    }
+
+    /**
+     * Gets the queue admitting menu opens requested through openMenuAsync, e.g. to set its budget.
+     *
+     * @return the open queue, or null if this service does not queue opens
+     */
+    default MenuOpenQueue getOpenQueue() {
+        return null;
+    }
+
+    /**
+     * Gets the tracer recording the steps of menu flows opened through this service.
+     *
+     * @return the tracer, or null if this service does not trace menu flows
+     */
+    default MenuTracer getTracer() {
+        return null;
+    }
 }
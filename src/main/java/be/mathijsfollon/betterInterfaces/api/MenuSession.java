@@ -17,6 +17,15 @@ public interface MenuSession {
 
     CompletableFuture<MenuOpenEvent> getResult();
 
+    /**
+     * Gets the context this session was opened with.
+     *
+     * @return the menu open context, or null if the session does not keep one
+     */
+    default MenuOpenContextStore getContext() {
+        return null;
+    }
+
     /**
      * Gets the event manager associated with this session.
      * Can be used to fire custom events.
@@ -0,0 +1,55 @@
+package be.mathijsfollon.betterInterfaces.api;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Source of page content for a {@link PageableMenu}.
+ * Entries are rendered on demand, so only the entries on the visible page are ever turned into {@link ItemStack}s.
+ *
+ * A source can grow while a menu shows it, e.g. while search results are still being computed.
+ * Such a source reports {@link #isComplete()} as false until all entries are available and notifies its
+ * listeners whenever entries are added.
+ */
+public interface PageSource {
+    /**
+     * Gets the number of entries that are currently available.
+     *
+     * @return the number of entries
+     */
+    int size();
+
+    /**
+     * Renders a single entry.
+     *
+     * @param index the entry index (0-based, less than {@link #size()})
+     * @return the item stack to display, or null to leave the slot empty
+     */
+    ItemStack render(int index);
+
+    /**
+     * Checks whether all entries are available.
+     *
+     * @return true if no more entries will be added
+     */
+    default boolean isComplete() {
+        return true;
+    }
+
+    /**
+     * Adds a listener that is notified when entries are added or the source completes.
+     * Listeners can be called from any thread.
+     *
+     * @param listener the listener
+     */
+    default void addListener(Runnable listener) {
+        // Sources that never change have nothing to notify
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    default void removeListener(Runnable listener) {
+    }
+}
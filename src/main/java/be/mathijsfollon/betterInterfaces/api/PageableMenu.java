@@ -24,6 +24,37 @@ public interface PageableMenu extends Menu {
      */
     void addPages(List<MenuDefinition> pages);
 
+    /**
+     * Sets a source that provides the page content instead of page definitions.
+     * Only the entries on the visible page are rendered.
+     *
+     * @param source the page source, or null to use the added pages again
+     */
+    void setPageSource(PageSource source);
+
+    /**
+     * Gets the index in the page source of the entry shown in a slot.
+     *
+     * @param slot the slot
+     * @return the entry index, or -1 if the slot does not show a page source entry
+     */
+    int getSourceIndex(int slot);
+
+    /**
+     * Enables or disables scroll mode, in which navigation moves the view by one row instead of a whole page.
+     * Only applies to menus with a page source.
+     *
+     * @param scrollMode true to scroll by rows
+     */
+    void setScrollMode(boolean scrollMode);
+
+    /**
+     * Scrolls the view by a number of rows. Has no effect outside of scroll mode.
+     *
+     * @param rows the number of rows to scroll, negative to scroll up
+     */
+    void scroll(int rows);
+
     /**
      * Sets the navigation items for the bottom row.
      *
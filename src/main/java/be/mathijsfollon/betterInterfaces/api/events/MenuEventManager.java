@@ -1,11 +1,53 @@
 package be.mathijsfollon.betterInterfaces.api.events;
 
+import java.util.Collection;
+
 public interface MenuEventManager {
     void registerListener(MenuEventListener listener);
 
+    /**
+     * Registers many listeners at once, rebuilding each handler table only once.
+     * Dispatch either sees none or all of the new handlers.
+     * The default registers the listeners one by one, without that guarantee.
+     *
+     * @param listeners the listeners to register
+     */
+    default void registerListeners(Collection<? extends MenuEventListener> listeners) {
+        for (MenuEventListener listener : listeners) {
+            registerListener(listener);
+        }
+    }
+
     void unregisterListener(MenuEventListener listener);
 
+    /**
+     * Unregisters and registers listeners in a single table swap, e.g. when menu definitions are reloaded.
+     * Dispatch sees either the old or the new handlers, never a mix.
+     * The default unregisters and registers the listeners one by one, without that guarantee.
+     *
+     * @param removed the listeners to unregister
+     * @param added   the listeners to register
+     */
+    default void replaceListeners(Collection<? extends MenuEventListener> removed, Collection<? extends MenuEventListener> added) {
+        for (MenuEventListener listener : removed) {
+            unregisterListener(listener);
+        }
+        registerListeners(added);
+    }
+
     void fireEvent(MenuEvent event);
 
+    /**
+     * Checks whether any handler would receive an event of the given type for menus
+     * created by the given definition class. Callers can use this to skip building events nobody listens to.
+     *
+     * @param eventType       the event type
+     * @param definitionClass the MenuDefinition class that created the menu, or null to match any listener
+     * @return true if at least one handler would be invoked; by default always true, so events are always built
+     */
+    default boolean hasHandlers(Class<? extends MenuEvent> eventType, Class<?> definitionClass) {
+        return true;
+    }
+
     void clear();
 }
@@ -0,0 +1,55 @@
+package be.mathijsfollon.betterInterfaces.api.events;
+
+/**
+ * Registry of the {@link MenuEventHandler} methods of a listener class, generated at compile time.
+ * The annotation processor in the {@code processor} module generates an implementation named
+ * {@code <ListenerBinaryName>_MenuHandlers} next to every listener class. When present, the event manager
+ * uses it instead of scanning the class with reflection, and handlers are invoked with direct calls.
+ *
+ * @param <L> the listener type
+ */
+public interface MenuHandlerRegistry<L extends MenuEventListener> {
+    /**
+     * Suffix appended to the binary name of a listener class to get the name of its generated registry.
+     */
+    String SUFFIX = "_MenuHandlers";
+
+    /**
+     * Reports all handlers of a listener instance to the sink.
+     *
+     * @param listener the listener instance
+     * @param sink     receives every handler
+     */
+    void register(L listener, Sink sink);
+
+    /**
+     * Receives the handlers reported by a registry.
+     */
+    @FunctionalInterface
+    interface Sink {
+        /**
+         * Accepts a single handler.
+         *
+         * @param eventType       the event type the handler accepts
+         * @param priority        the handler priority
+         * @param ignoreCancelled whether the handler ignores cancelled events
+         * @param methodName      the name of the handler method, used in error messages
+         * @param invoker         invokes the handler
+         */
+        void accept(Class<? extends MenuEvent> eventType, int priority, boolean ignoreCancelled, String methodName, Invoker invoker);
+    }
+
+    /**
+     * Invokes a single handler method.
+     */
+    @FunctionalInterface
+    interface Invoker {
+        /**
+         * Invokes the handler.
+         *
+         * @param event the event
+         * @throws Exception anything the handler throws
+         */
+        void invoke(MenuEvent event) throws Exception;
+    }
+}
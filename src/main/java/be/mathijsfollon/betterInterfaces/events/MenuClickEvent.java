@@ -9,19 +9,25 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.function.Supplier;
+
 /**
  * Event fired when a menu item is clicked.
+ * Instances may be pooled (see {@link MenuEventPool}), so handlers must not keep them after returning.
  */
 public class MenuClickEvent implements MenuEvent {
-    private final Player player;
-    private final Menu menu;
-    private final MenuSession session;
-    private final MenuOpenContextStore context;
-    private final int slot;
-    private final ItemStack item;
-    private final MenuItem menuItem;
-    private final ClickType clickType;
+    private Player player;
+    private Menu menu;
+    private MenuSession session;
+    private MenuOpenContextStore context;
+    private int slot;
+    private ItemStack item;
+    private Supplier<ItemStack> itemSupplier;
+    private MenuItem menuItem;
+    private ClickType clickType;
     private boolean cancelled;
+    private boolean pooled;
+    private boolean released;
 
     public MenuClickEvent(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, int slot, ItemStack item, MenuItem menuItem, ClickType clickType) {
         this.player = player;
@@ -35,23 +41,97 @@ public class MenuClickEvent implements MenuEvent {
         this.cancelled = false;
     }
 
+    /**
+     * Creates a click event whose item is only computed when a handler asks for it.
+     * Looking up the clicked item copies the ItemStack, so this avoids the copy for handlers that never need it.
+     *
+     * @param itemSupplier supplies the clicked item on first access
+     * @return the click event
+     */
+    public static MenuClickEvent lazy(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, int slot, Supplier<ItemStack> itemSupplier, MenuItem menuItem, ClickType clickType) {
+        MenuClickEvent event = new MenuClickEvent(player, menu, session, context, slot, null, menuItem, clickType);
+        event.itemSupplier = itemSupplier;
+        return event;
+    }
+
+    /**
+     * Re-initializes a pooled event for a new click.
+     */
+    void init(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, int slot, Supplier<ItemStack> itemSupplier, MenuItem menuItem, ClickType clickType) {
+        this.player = player;
+        this.menu = menu;
+        this.session = session;
+        this.context = context;
+        this.slot = slot;
+        this.item = null;
+        this.itemSupplier = itemSupplier;
+        this.menuItem = menuItem;
+        this.clickType = clickType;
+        this.cancelled = false;
+    }
+
+    /**
+     * Marks this event as handed out by the pool.
+     */
+    void markPooled() {
+        this.pooled = true;
+        this.released = false;
+    }
+
+    /**
+     * Checks if this event was handed out by the pool.
+     */
+    boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * Clears all references after dispatch so the pool does not keep menus or players alive.
+     *
+     * @param poison true to make any further access throw (debug mode)
+     */
+    void reset(boolean poison) {
+        this.player = null;
+        this.menu = null;
+        this.session = null;
+        this.context = null;
+        this.slot = -1;
+        this.item = null;
+        this.itemSupplier = null;
+        this.menuItem = null;
+        this.clickType = null;
+        this.cancelled = false;
+        this.pooled = false;
+        this.released = poison;
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("MenuClickEvent was accessed after dispatch; handlers must not keep pooled events");
+        }
+    }
+
     @Override
     public Player getPlayer() {
+        checkNotReleased();
         return player;
     }
 
     @Override
     public Menu getMenu() {
+        checkNotReleased();
         return menu;
     }
 
     @Override
     public MenuSession getSession() {
+        checkNotReleased();
         return session;
     }
 
     @Override
     public MenuOpenContextStore getContext() {
+        checkNotReleased();
         return context;
     }
 
@@ -61,6 +141,7 @@ public class MenuClickEvent implements MenuEvent {
      * @return the slot index
      */
     public int getSlot() {
+        checkNotReleased();
         return slot;
     }
 
@@ -70,6 +151,11 @@ public class MenuClickEvent implements MenuEvent {
      * @return the item stack, or null if no item
      */
     public ItemStack getItem() {
+        checkNotReleased();
+        if (itemSupplier != null) {
+            item = itemSupplier.get();
+            itemSupplier = null;
+        }
         return item;
     }
 
@@ -79,6 +165,7 @@ public class MenuClickEvent implements MenuEvent {
      * @return the menu item, or null if no menu item at that slot
      */
     public MenuItem getMenuItem() {
+        checkNotReleased();
         return menuItem;
     }
 
@@ -88,16 +175,19 @@ public class MenuClickEvent implements MenuEvent {
      * @return the click type
      */
     public ClickType getClickType() {
+        checkNotReleased();
         return clickType;
     }
 
     @Override
     public boolean isCancelled() {
+        checkNotReleased();
         return cancelled;
     }
 
     @Override
     public void setCancelled(boolean cancelled) {
+        checkNotReleased();
         this.cancelled = cancelled;
     }
 }
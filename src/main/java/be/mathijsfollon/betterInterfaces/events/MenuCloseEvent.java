@@ -8,14 +8,17 @@ import org.bukkit.entity.Player;
 
 /**
  * Event fired when a menu is closed.
+ * Instances may be pooled (see {@link MenuEventPool}), so handlers must not keep them after returning.
  */
 public class MenuCloseEvent implements MenuEvent {
-    private final Player player;
-    private final Menu menu;
-    private final MenuSession session;
-    private final MenuOpenContextStore context;
-    private final boolean silent;
+    private Player player;
+    private Menu menu;
+    private MenuSession session;
+    private MenuOpenContextStore context;
+    private boolean silent;
     private boolean cancelled;
+    private boolean pooled;
+    private boolean released;
 
     public MenuCloseEvent(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, boolean silent) {
         this.player = player;
@@ -26,23 +29,76 @@ public class MenuCloseEvent implements MenuEvent {
         this.cancelled = false;
     }
 
+    /**
+     * Re-initializes a pooled event for a new close.
+     */
+    void init(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, boolean silent) {
+        this.player = player;
+        this.menu = menu;
+        this.session = session;
+        this.context = context;
+        this.silent = silent;
+        this.cancelled = false;
+    }
+
+    /**
+     * Marks this event as handed out by the pool.
+     */
+    void markPooled() {
+        this.pooled = true;
+        this.released = false;
+    }
+
+    /**
+     * Checks if this event was handed out by the pool.
+     */
+    boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * Clears all references after dispatch so the pool does not keep menus or players alive.
+     *
+     * @param poison true to make any further access throw (debug mode)
+     */
+    void reset(boolean poison) {
+        this.player = null;
+        this.menu = null;
+        this.session = null;
+        this.context = null;
+        this.silent = false;
+        this.cancelled = false;
+        this.pooled = false;
+        this.released = poison;
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("MenuCloseEvent was accessed after dispatch; handlers must not keep pooled events");
+        }
+    }
+
     @Override
     public Player getPlayer() {
+        checkNotReleased();
         return player;
     }
 
     @Override
     public Menu getMenu() {
+        checkNotReleased();
         return menu;
     }
 
     @Override
     public MenuSession getSession() {
+        checkNotReleased();
         return session;
     }
 
     @Override
     public MenuOpenContextStore getContext() {
+        checkNotReleased();
         return context;
     }
 
@@ -52,16 +108,19 @@ public class MenuCloseEvent implements MenuEvent {
      * @return true if closed silently, false otherwise
      */
     public boolean isSilent() {
+        checkNotReleased();
         return silent;
     }
 
     @Override
     public boolean isCancelled() {
+        checkNotReleased();
         return cancelled;
     }
 
     @Override
     public void setCancelled(boolean cancelled) {
+        checkNotReleased();
         this.cancelled = cancelled;
     }
 }
@@ -5,17 +5,54 @@ import be.mathijsfollon.betterInterfaces.api.events.MenuEvent;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventHandler;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventListener;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
+import be.mathijsfollon.betterInterfaces.api.events.MenuHandlerRegistry;
+import be.mathijsfollon.betterInterfaces.jfr.MenuDispatchJfrEvent;
+import be.mathijsfollon.betterInterfaces.jfr.MenuHandlerJfrEvent;
+import be.mathijsfollon.betterInterfaces.metrics.MenuMetrics;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages menu event listeners and event dispatching.
+ *
+ * Handlers are kept in an immutable {@link HandlerTable} that is rebuilt on registration and
+ * published with a single volatile write, so dispatch never sees a half-built table and never locks.
+ *
+ * Listener classes compiled with the BetterInterfaces annotation processor come with a generated
+ * {@link MenuHandlerRegistry}, which is used instead of reflection. Other classes are scanned with reflection.
  */
 public class MenuEventManagerImpl implements MenuEventManager {
-    private final Map<Class<? extends MenuEvent>, List<EventHandler>> handlers = new ConcurrentHashMap<>();
+    // Generated registry per listener class, or empty if the class has none.
+    // A ClassValue does not keep the listener class, and so its plugin's class loader, alive after unloading.
+    private static final ClassValue<Optional<MenuHandlerRegistry<MenuEventListener>>> REGISTRIES = new ClassValue<>() {
+        @Override
+        protected Optional<MenuHandlerRegistry<MenuEventListener>> computeValue(Class<?> type) {
+            return findRegistry(type);
+        }
+    };
+
+    private final Object writeLock = new Object();
+    private volatile HandlerTable table = HandlerTable.EMPTY;
+    private final MenuEventPool eventPool = new MenuEventPool();
+    private final MenuMetrics metrics;
+    private final MenuTracer tracer;
+
+    public MenuEventManagerImpl() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a new MenuEventManagerImpl that records handler latencies and traces dispatches.
+     *
+     * @param metrics the metrics to record to (can be null)
+     * @param tracer  the tracer to record dispatch spans to (can be null)
+     */
+    public MenuEventManagerImpl(MenuMetrics metrics, MenuTracer tracer) {
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
 
     /**
      * Registers a listener and scans it for methods annotated with {@link MenuEventHandler}.
@@ -24,7 +61,76 @@ public class MenuEventManagerImpl implements MenuEventManager {
      */
     @Override
     public void registerListener(MenuEventListener listener) {
+        registerListeners(List.of(listener));
+    }
+
+    /**
+     * Registers many listeners at once.
+     * All listeners are scanned first, then every handler table is sorted and published exactly once.
+     *
+     * @param listeners the listeners to register
+     */
+    @Override
+    public void registerListeners(Collection<? extends MenuEventListener> listeners) {
+        replaceListeners(List.of(), listeners);
+    }
+
+    /**
+     * Replaces listeners in one step.
+     * The new listeners are scanned first, then the old handlers are removed and the new ones added
+     * under a single table rebuild, so dispatch never sees both or neither.
+     *
+     * @param removed the listeners to unregister
+     * @param added   the listeners to register
+     */
+    @Override
+    public void replaceListeners(Collection<? extends MenuEventListener> removed, Collection<? extends MenuEventListener> added) {
+        // Scanning uses reflection, so do it before taking the lock
+        List<EventHandler> scanned = new ArrayList<>();
+        for (MenuEventListener listener : added) {
+            scan(listener, scanned);
+        }
+        if (scanned.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Set<MenuEventListener> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+        stale.addAll(removed);
+
+        synchronized (writeLock) {
+            Map<Class<? extends MenuEvent>, List<EventHandler>> merged = table.copyHandlers();
+            boolean changed = !scanned.isEmpty();
+            if (!stale.isEmpty()) {
+                for (List<EventHandler> handlerList : merged.values()) {
+                    changed |= handlerList.removeIf(handler -> stale.contains(handler.listener()));
+                }
+            }
+            for (EventHandler handler : scanned) {
+                merged.computeIfAbsent(handler.eventType(), k -> new ArrayList<>()).add(handler);
+            }
+            if (changed) {
+                table = HandlerTable.build(merged);
+            }
+        }
+    }
+
+    /**
+     * Collects the handlers of a listener, from its generated registry if present,
+     * otherwise by scanning for methods annotated with {@link MenuEventHandler}.
+     *
+     * @param listener the listener to scan
+     * @param out      the list to add the found handlers to
+     */
+    private void scan(MenuEventListener listener, List<EventHandler> out) {
         Class<?> clazz = listener.getClass();
+
+        Optional<MenuHandlerRegistry<MenuEventListener>> registry = REGISTRIES.get(clazz);
+        if (registry.isPresent()) {
+            registry.get().register(listener, (eventType, priority, ignoreCancelled, methodName, invoker) ->
+                    out.add(new EventHandler(eventType, listener, methodName, invoker, priority, ignoreCancelled)));
+            return;
+        }
+
         for (Method method : clazz.getDeclaredMethods()) {
             MenuEventHandler annotation = method.getAnnotation(MenuEventHandler.class);
             if (annotation == null) {
@@ -41,13 +147,30 @@ public class MenuEventManagerImpl implements MenuEventManager {
             Class<? extends MenuEvent> eventType = (Class<? extends MenuEvent>) parameterTypes[0];
 
             method.setAccessible(true);
-            EventHandler handler = new EventHandler(listener, method, annotation.priority(), annotation.ignoreCancelled());
+            MenuHandlerRegistry.Invoker invoker = event -> method.invoke(listener, event);
+            out.add(new EventHandler(eventType, listener, method.getName(), invoker, annotation.priority(), annotation.ignoreCancelled()));
+        }
+    }
 
-            handlers.computeIfAbsent(eventType, k -> new CopyOnWriteArrayList<>()).add(handler);
-            
-            // Sort by priority (lower priority first)
-            List<EventHandler> handlerList = handlers.get(eventType);
-            handlerList.sort(Comparator.comparingInt(EventHandler::priority));
+    /**
+     * Looks up the registry generated for a listener class at compile time.
+     *
+     * @param clazz the listener class
+     * @return the generated registry, or empty if the class has none
+     */
+    @SuppressWarnings("unchecked")
+    private static Optional<MenuHandlerRegistry<MenuEventListener>> findRegistry(Class<?> clazz) {
+        try {
+            Class<?> registryClass = Class.forName(clazz.getName() + MenuHandlerRegistry.SUFFIX, true, clazz.getClassLoader());
+            if (!MenuHandlerRegistry.class.isAssignableFrom(registryClass)) {
+                return Optional.empty();
+            }
+            return Optional.of((MenuHandlerRegistry<MenuEventListener>) registryClass.getDeclaredConstructor().newInstance());
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Could not load generated handler registry for " + clazz.getName() + ", falling back to reflection: " + e.getMessage());
+            return Optional.empty();
         }
     }
 
@@ -58,9 +181,20 @@ public class MenuEventManagerImpl implements MenuEventManager {
      */
     @Override
     public void unregisterListener(MenuEventListener listener) {
-        for (List<EventHandler> handlerList : handlers.values()) {
-            handlerList.removeIf(handler -> handler.listener() == listener);
-        }
+        replaceListeners(List.of(listener), List.of());
+    }
+
+    /**
+     * Checks whether any handler would receive an event of the given type for menus
+     * created by the given definition class.
+     *
+     * @param eventType       the event type
+     * @param definitionClass the MenuDefinition class that created the menu, or null to match any listener
+     * @return true if at least one handler would be invoked
+     */
+    @Override
+    public boolean hasHandlers(Class<? extends MenuEvent> eventType, Class<?> definitionClass) {
+        return table.handlersFor(eventType, definitionClass).length > 0;
     }
 
     /**
@@ -70,62 +204,145 @@ public class MenuEventManagerImpl implements MenuEventManager {
      */
     @Override
     public void fireEvent(MenuEvent event) {
-        Class<? extends MenuEvent> eventType = event.getClass();
-        List<EventHandler> handlerList = handlers.get(eventType);
-        
-        if (handlerList == null || handlerList.isEmpty()) {
-            return;
-        }
-
         // Get the MenuDefinition class from context to match against listener classes
+        // Only the MenuDefinition that created the menu handles its events
         MenuOpenContextStore context = event.getContext();
-        Optional<Class<?>> menuDefinitionClass = context.getMenuDefinitionClass();
+        Class<?> menuDefinitionClass = context.getMenuDefinitionClass().orElse(null);
 
-        for (EventHandler handler : handlerList) {
-            // Only invoke handlers if the listener's class matches the MenuDefinition class that created the menu
-            if (menuDefinitionClass.isPresent()) {
-                Class<?> listenerClass = handler.listener().getClass();
-                Class<?> definitionClass = menuDefinitionClass.get();
-                
-                // Match if listener class equals the MenuDefinition class
-                // This ensures only the MenuDefinition that created the menu handles its events
-                if (!listenerClass.equals(definitionClass)) {
-                    continue;
-                }
-            }
+        EventHandler[] handlerList = table.handlersFor(event.getClass(), menuDefinitionClass);
+
+        MenuDispatchJfrEvent dispatch = new MenuDispatchJfrEvent();
+        dispatch.begin();
+        long traceStart = tracer != null && handlerList.length > 0 ? tracer.start() : 0L;
 
+        for (EventHandler handler : handlerList) {
             // Skip if cancelled and handler ignores cancelled events
             if (event.isCancelled() && handler.ignoreCancelled()) {
                 continue;
             }
 
+            MenuHandlerJfrEvent invocation = new MenuHandlerJfrEvent();
+            invocation.begin();
+            long start = metrics != null ? System.nanoTime() : 0L;
             try {
-                handler.method().invoke(handler.listener(), event);
+                handler.invoker().invoke(event);
             } catch (Exception e) {
+                invocation.failed = true;
                 // Log error but continue processing other handlers
-                System.err.println("Error invoking event handler " + handler.method().getName() + 
+                System.err.println("Error invoking event handler " + handler.methodName() + 
                         " in " + handler.listener().getClass().getName() + ": " + e.getMessage());
                 e.printStackTrace();
             }
+            if (metrics != null) {
+                metrics.handlerInvoked(event.getClass().getSimpleName(), System.nanoTime() - start);
+            }
+            invocation.end();
+            if (invocation.shouldCommit()) {
+                invocation.describe(context, event.getPlayer());
+                invocation.eventType = event.getClass().getSimpleName();
+                invocation.handler = handler.listener().getClass().getName() + "#" + handler.methodName();
+                invocation.slot = event instanceof MenuClickEvent clickEvent ? clickEvent.getSlot() : -1;
+                invocation.commit();
+            }
+        }
+
+        if (traceStart != 0L) {
+            tracer.record(context, "handlers:" + event.getClass().getSimpleName(), traceStart);
+        }
+
+        dispatch.end();
+        if (dispatch.shouldCommit()) {
+            dispatch.describe(context, event.getPlayer());
+            dispatch.eventType = event.getClass().getSimpleName();
+            dispatch.slot = event instanceof MenuClickEvent clickEvent ? clickEvent.getSlot() : -1;
+            dispatch.handlers = handlerList.length;
+            dispatch.commit();
         }
     }
 
+    /**
+     * Gets the pool used to reuse click and close events.
+     *
+     * @return the event pool
+     */
+    public MenuEventPool getEventPool() {
+        return eventPool;
+    }
+
     /**
      * Clears all registered listeners.
      */
     @Override
     public void clear() {
-        handlers.clear();
+        synchronized (writeLock) {
+            table = HandlerTable.EMPTY;
+        }
     }
 
     /**
      * Internal record to store event handler information.
      */
     private record EventHandler(
+            Class<? extends MenuEvent> eventType,
             MenuEventListener listener,
-            Method method,
+            String methodName,
+            MenuHandlerRegistry.Invoker invoker,
             int priority,
             boolean ignoreCancelled
     ) {}
-}
 
+    /**
+     * Immutable snapshot of all handlers, sorted by priority (lower priority first).
+     * Handlers are also grouped per listener class, so dispatching to the definition that created
+     * a menu only walks that definition's handlers.
+     */
+    private record HandlerTable(
+            Map<Class<? extends MenuEvent>, EventHandler[]> handlers,
+            Map<Class<? extends MenuEvent>, Map<Class<?>, EventHandler[]>> handlersByListenerClass
+    ) {
+        private static final EventHandler[] NONE = new EventHandler[0];
+        private static final HandlerTable EMPTY = new HandlerTable(Map.of(), Map.of());
+
+        private static HandlerTable build(Map<Class<? extends MenuEvent>, List<EventHandler>> source) {
+            Map<Class<? extends MenuEvent>, EventHandler[]> handlers = new HashMap<>();
+            Map<Class<? extends MenuEvent>, Map<Class<?>, EventHandler[]>> byClass = new HashMap<>();
+
+            for (Map.Entry<Class<? extends MenuEvent>, List<EventHandler>> entry : source.entrySet()) {
+                List<EventHandler> handlerList = entry.getValue();
+                if (handlerList.isEmpty()) {
+                    continue;
+                }
+                // Stable sort, so handlers with equal priority keep their registration order
+                handlerList.sort(Comparator.comparingInt(EventHandler::priority));
+                handlers.put(entry.getKey(), handlerList.toArray(NONE));
+
+                Map<Class<?>, List<EventHandler>> grouped = new HashMap<>();
+                for (EventHandler handler : handlerList) {
+                    grouped.computeIfAbsent(handler.listener().getClass(), k -> new ArrayList<>()).add(handler);
+                }
+                Map<Class<?>, EventHandler[]> groupedArrays = new HashMap<>();
+                grouped.forEach((listenerClass, list) -> groupedArrays.put(listenerClass, list.toArray(NONE)));
+                byClass.put(entry.getKey(), groupedArrays);
+            }
+
+            return new HandlerTable(handlers, byClass);
+        }
+
+        private EventHandler[] handlersFor(Class<? extends MenuEvent> eventType, Class<?> definitionClass) {
+            if (definitionClass == null) {
+                return handlers.getOrDefault(eventType, NONE);
+            }
+            Map<Class<?>, EventHandler[]> byListener = handlersByListenerClass.get(eventType);
+            if (byListener == null) {
+                return NONE;
+            }
+            return byListener.getOrDefault(definitionClass, NONE);
+        }
+
+        private Map<Class<? extends MenuEvent>, List<EventHandler>> copyHandlers() {
+            Map<Class<? extends MenuEvent>, List<EventHandler>> copy = new HashMap<>();
+            handlers.forEach((eventType, array) -> copy.put(eventType, new ArrayList<>(Arrays.asList(array))));
+            return copy;
+        }
+    }
+}
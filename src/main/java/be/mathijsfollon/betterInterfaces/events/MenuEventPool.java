@@ -0,0 +1,199 @@
+package be.mathijsfollon.betterInterfaces.events;
+
+import be.mathijsfollon.betterInterfaces.api.Menu;
+import be.mathijsfollon.betterInterfaces.api.MenuItem;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuSession;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEvent;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in pool of reusable click and close events.
+ * Event dispatch is synchronous, so once {@link MenuEventManager#fireEvent}
+ * returns and the caller has read the result, the event can be reset and handed out again.
+ * Free events are kept per thread, which keeps the pool lock-free and safe for nested dispatch
+ * (a handler opening another menu simply takes a second event from the pool).
+ *
+ * Handlers must not keep a reference to a pooled event after they return. In debug mode, released events
+ * are never reused and any access to them throws, pointing at the handler that retained the event.
+ *
+ * {@link MenuOpenEvent} is never pooled, because it is handed out through {@link MenuSession#getResult()}.
+ *
+ * The pool has not been benchmarked. Use {@link #getAllocatedCount()} and {@link #getReusedCount()} to check
+ * whether it saves allocations on a given server.
+ */
+public class MenuEventPool {
+    private static final int MAX_POOLED_PER_THREAD = 8;
+    // Handed out for event managers that do not pool; never enabled, so every event is a new instance
+    private static final MenuEventPool UNPOOLED = new MenuEventPool(false);
+
+    private final ThreadLocal<ArrayDeque<MenuClickEvent>> clickEvents = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ThreadLocal<ArrayDeque<MenuCloseEvent>> closeEvents = ThreadLocal.withInitial(ArrayDeque::new);
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final boolean configurable;
+    private volatile boolean enabled;
+    private volatile boolean debug;
+
+    /**
+     * Creates a new MenuEventPool. Pooling is disabled until {@link #setEnabled(boolean)} turns it on.
+     */
+    public MenuEventPool() {
+        this(true);
+    }
+
+    private MenuEventPool(boolean configurable) {
+        this.configurable = configurable;
+    }
+
+    /**
+     * Gets the event pool of an event manager.
+     * Managers other than {@link MenuEventManagerImpl} get a shared pool that never reuses events.
+     *
+     * @param manager the event manager
+     * @return the pool to acquire events for the manager from
+     */
+    public static MenuEventPool of(MenuEventManager manager) {
+        return manager instanceof MenuEventManagerImpl impl ? impl.getEventPool() : UNPOOLED;
+    }
+
+    /**
+     * Gets a click event, reusing a pooled one when pooling is enabled.
+     *
+     * @return the initialized click event
+     */
+    public MenuClickEvent acquireClickEvent(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, int slot, Supplier<ItemStack> itemSupplier, MenuItem menuItem, ClickType clickType) {
+        if (!enabled) {
+            return MenuClickEvent.lazy(player, menu, session, context, slot, itemSupplier, menuItem, clickType);
+        }
+
+        MenuClickEvent event = debug ? null : clickEvents.get().poll();
+        if (event == null) {
+            allocated.increment();
+            event = MenuClickEvent.lazy(player, menu, session, context, slot, itemSupplier, menuItem, clickType);
+        } else {
+            reused.increment();
+            event.init(player, menu, session, context, slot, itemSupplier, menuItem, clickType);
+        }
+        event.markPooled();
+        return event;
+    }
+
+    /**
+     * Gets a close event, reusing a pooled one when pooling is enabled.
+     *
+     * @return the initialized close event
+     */
+    public MenuCloseEvent acquireCloseEvent(Player player, Menu menu, MenuSession session, MenuOpenContextStore context, boolean silent) {
+        if (!enabled) {
+            return new MenuCloseEvent(player, menu, session, context, silent);
+        }
+
+        MenuCloseEvent event = debug ? null : closeEvents.get().poll();
+        if (event == null) {
+            allocated.increment();
+            event = new MenuCloseEvent(player, menu, session, context, silent);
+        } else {
+            reused.increment();
+            event.init(player, menu, session, context, silent);
+        }
+        event.markPooled();
+        return event;
+    }
+
+    /**
+     * Returns an event to the pool after dispatch.
+     * Events that were not acquired from an enabled pool are ignored, so callers can always release.
+     *
+     * @param event the event to release
+     */
+    public void release(MenuEvent event) {
+        if (event instanceof MenuClickEvent clickEvent && clickEvent.isPooled()) {
+            clickEvent.reset(debug);
+            if (!debug) {
+                offer(clickEvents.get(), clickEvent);
+            }
+        } else if (event instanceof MenuCloseEvent closeEvent && closeEvent.isPooled()) {
+            closeEvent.reset(debug);
+            if (!debug) {
+                offer(closeEvents.get(), closeEvent);
+            }
+        }
+    }
+
+    private static <T> void offer(ArrayDeque<T> pool, T event) {
+        if (pool.size() < MAX_POOLED_PER_THREAD) {
+            pool.push(event);
+        }
+    }
+
+    /**
+     * Checks if pooling is enabled.
+     *
+     * @return true if events are pooled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables event pooling.
+     *
+     * @param enabled true to pool click and close events
+     */
+    public void setEnabled(boolean enabled) {
+        checkConfigurable();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Checks if retention detection is enabled.
+     *
+     * @return true if debug mode is enabled
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * Enables or disables retention detection.
+     * In debug mode released events are not reused, and accessing them throws an {@link IllegalStateException}.
+     *
+     * @param debug true to detect handlers retaining pooled events
+     */
+    public void setDebug(boolean debug) {
+        checkConfigurable();
+        this.debug = debug;
+    }
+
+    private void checkConfigurable() {
+        if (!configurable) {
+            throw new IllegalStateException("Only the event pool of MenuEventManagerImpl can be configured");
+        }
+    }
+
+    /**
+     * Gets the number of events allocated while pooling was enabled.
+     *
+     * @return the number of allocated events
+     */
+    public long getAllocatedCount() {
+        return allocated.sum();
+    }
+
+    /**
+     * Gets the number of times a pooled event was reused instead of allocated.
+     *
+     * @return the number of reused events
+     */
+    public long getReusedCount() {
+        return reused.sum();
+    }
+}
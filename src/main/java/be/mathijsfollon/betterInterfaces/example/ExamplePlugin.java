@@ -2,6 +2,7 @@ package be.mathijsfollon.betterInterfaces.example;
 
 import be.mathijsfollon.betterInterfaces.api.Menu;
 import be.mathijsfollon.betterInterfaces.api.MenuDefinition;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenPriority;
 import be.mathijsfollon.betterInterfaces.api.MenuService;
 import be.mathijsfollon.betterInterfaces.api.MenuSession;
 import be.mathijsfollon.betterInterfaces.api.exceptions.MenuNotRegisteredException;
@@ -15,6 +16,7 @@ import be.mathijsfollon.betterInterfaces.example.examples.PageableMenuExample;
 import be.mathijsfollon.betterInterfaces.example.menus.ShowcaseMenu;
 import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
 import be.mathijsfollon.betterInterfaces.menu.MenuOpenContext;
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
@@ -124,14 +126,17 @@ public class ExamplePlugin extends JavaPlugin implements Listener, CommandExecut
         ctx.put("plugin", this); // Pass plugin instance
         // Note: MenuService is automatically added to context by the service
 
-        // Open the showcase menu after a short delay to let the player fully join
-        Bukkit.getScheduler().runTaskLater(this, () -> {
-            try {
-                service.openMenu(player, SHOWCASE_MENU, ctx);
-            } catch (MenuNotRegisteredException e) {
-                getLogger().warning("Showcase menu not registered!");
-            }
-        }, 20L); // 1 second delay
+        // Open the showcase menu after a short delay to let the player fully join.
+        // Nobody clicked for it, so it waits for the open budget: after a restart, the menus of all
+        // reconnecting players are spread over several ticks instead of opening in the same one.
+        MenuScheduler.of(this).runLater(player, () -> service
+            .openMenuAsync(player, SHOWCASE_MENU, ctx, MenuOpenPriority.AUTOMATIC)
+            .exceptionally(error -> {
+                if (error instanceof MenuNotRegisteredException) {
+                    getLogger().warning("Showcase menu not registered!");
+                }
+                return null;
+            }), 20L); // 1 second delay
     }
 
     /**
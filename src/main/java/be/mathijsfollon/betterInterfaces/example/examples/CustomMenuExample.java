@@ -175,12 +175,17 @@ public class CustomMenuExample {
                 
                 if (shopItem != null) {
                     event.setCancelled(true);
+
+                    // Purchases are expensive, respect the click throttle like the parent does
+                    if (!admitClick(slot)) {
+                        return;
+                    }
                     
                     // Handle purchase
                     shopItem.purchase(clickedPlayer);
                     
-                    // Update display
-                    draw();
+                    // Only the purchased item's lore changed, rewrite just that slot
+                    updateItem(slot);
                     return; // Don't call parent, we handled it
                 }
             }
@@ -218,19 +223,22 @@ public class CustomMenuExample {
                 plugin
             );
 
-            // Add shop items
-            shopMenu.addShopItem(10, new ItemStack(Material.DIAMOND), 100);
-            shopMenu.addShopItem(12, new ItemStack(Material.EMERALD), 50);
-            shopMenu.addShopItem(14, new ItemStack(Material.GOLD_INGOT), 25);
-            shopMenu.addShopItem(16, new ItemStack(Material.IRON_INGOT), 10);
+            // Lay out the shop in one batch, so every slot is written at most once
+            shopMenu.batch(menu -> {
+                // Add shop items
+                shopMenu.addShopItem(10, new ItemStack(Material.DIAMOND), 100);
+                shopMenu.addShopItem(12, new ItemStack(Material.EMERALD), 50);
+                shopMenu.addShopItem(14, new ItemStack(Material.GOLD_INGOT), 25);
+                shopMenu.addShopItem(16, new ItemStack(Material.IRON_INGOT), 10);
 
-            // Fill empty slots with gradient for visual appeal (before adding back button)
-            shopMenu.fillGradient(Material.PURPLE_STAINED_GLASS_PANE, Material.MAGENTA_STAINED_GLASS_PANE);
-            
-            // Add back button if there's a previous menu (after fill so it's on top)
-            // Use slot 22 (bottom center) to ensure visibility
-            // Pass ctx parameter so it can check for previous session even before this.context is set
-            shopMenu.addBackButton(22, ctx);
+                // Fill empty slots with gradient for visual appeal (fills render below buttons)
+                menu.fillGradient(Material.PURPLE_STAINED_GLASS_PANE, Material.MAGENTA_STAINED_GLASS_PANE);
+
+                // Add back button if there's a previous menu
+                // Use slot 22 (bottom center) to ensure visibility
+                // Pass ctx parameter so it can check for previous session even before this.context is set
+                menu.addBackButton(22, ctx);
+            });
 
             return shopMenu;
         }
@@ -58,10 +58,10 @@ public class DynamicMenuExample extends AbstractMenuDefinition {
         // Build menu dynamically based on player data
         buildDynamicMenu(simpleMenu, player, ctx);
 
-        // Fill empty slots with gradient for visual appeal (before adding back button)
+        // Fill empty slots with gradient for visual appeal (fills render below buttons, so order does not matter)
         simpleMenu.fillGradient(Material.GREEN_STAINED_GLASS_PANE, Material.LIME_STAINED_GLASS_PANE);
         
-        // Add back button if there's a previous menu (after fill so it's on top)
+        // Add back button if there's a previous menu (controls layer, always on top of the fill)
         // Use slot 22 (bottom center) to avoid conflicts with action items
         // Pass ctx parameter so it can check for previous session even before this.context is set
         simpleMenu.addBackButton(22, ctx);
@@ -0,0 +1,19 @@
+package be.mathijsfollon.betterInterfaces.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when a menu session is closed, covering close event dispatch.
+ */
+@Name("betterinterfaces.MenuClose")
+@Label("Menu Close")
+@Description("A menu session was closed")
+public class MenuCloseJfrEvent extends MenuJfrEvent {
+    @Label("Silent")
+    public boolean silent;
+
+    @Label("Cancelled")
+    public boolean cancelled;
+}
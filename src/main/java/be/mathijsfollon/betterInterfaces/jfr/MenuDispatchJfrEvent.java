@@ -0,0 +1,23 @@
+package be.mathijsfollon.betterInterfaces.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every menu event fired through the event manager, covering all handlers it was dispatched to.
+ */
+@Name("betterinterfaces.MenuDispatch")
+@Label("Menu Event Dispatch")
+@Description("A menu event was dispatched to its handlers")
+public class MenuDispatchJfrEvent extends MenuJfrEvent {
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Slot")
+    @Description("The clicked slot, or -1 if the event is not a click")
+    public int slot = -1;
+
+    @Label("Handlers")
+    public int handlers;
+}
@@ -0,0 +1,28 @@
+package be.mathijsfollon.betterInterfaces.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every handler invocation, so time spent in handlers is attributed to the handler
+ * instead of showing up as anonymous reflection frames.
+ */
+@Name("betterinterfaces.MenuHandler")
+@Label("Menu Event Handler")
+@Description("A menu event handler was invoked")
+public class MenuHandlerJfrEvent extends MenuJfrEvent {
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Handler")
+    @Description("The handler method, as ListenerClass#method")
+    public String handler;
+
+    @Label("Slot")
+    @Description("The clicked slot, or -1 if the event is not a click")
+    public int slot = -1;
+
+    @Label("Failed")
+    public boolean failed;
+}
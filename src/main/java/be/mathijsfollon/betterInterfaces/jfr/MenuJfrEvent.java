@@ -0,0 +1,41 @@
+package be.mathijsfollon.betterInterfaces.jfr;
+
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.bukkit.entity.Player;
+
+/**
+ * Base class of the Java Flight Recorder events emitted by BetterInterfaces.
+ *
+ * All events are disabled by default. A disabled event costs a field check, and the JIT removes the
+ * event allocation, so instrumented code paths stay effectively free until a recording enables them.
+ * They can be enabled with the {@code betterinterfaces.jfc} settings file bundled in the jar,
+ * which the plugin saves to its data folder.
+ *
+ * Fields are only filled in after {@link #shouldCommit()} returned true.
+ */
+@Category({"BetterInterfaces", "Menu"})
+@Enabled(false)
+@StackTrace(false)
+public abstract class MenuJfrEvent extends Event {
+    @Label("Menu Id")
+    protected String menuId;
+
+    @Label("Player")
+    protected String player;
+
+    /**
+     * Fills in the menu id and player from a menu context.
+     *
+     * @param context the menu context (can be null)
+     * @param player  the player (can be null)
+     */
+    public void describe(MenuOpenContextStore context, Player player) {
+        this.menuId = context != null ? context.get("menu-id", String.class).orElse(null) : null;
+        this.player = player != null ? player.getName() : null;
+    }
+}
@@ -0,0 +1,16 @@
+package be.mathijsfollon.betterInterfaces.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when a menu session is opened, covering open event dispatch and the initial render.
+ */
+@Name("betterinterfaces.MenuOpen")
+@Label("Menu Open")
+@Description("A menu session was opened")
+public class MenuOpenJfrEvent extends MenuJfrEvent {
+    @Label("Cancelled")
+    public boolean cancelled;
+}
@@ -0,0 +1,20 @@
+package be.mathijsfollon.betterInterfaces.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when a menu draws its items into its inventory, or a pageable menu renders a page.
+ */
+@Name("betterinterfaces.MenuRender")
+@Label("Menu Render")
+@Description("A menu was drawn into its inventory")
+public class MenuRenderJfrEvent extends MenuJfrEvent {
+    @Label("Page")
+    @Description("The rendered page, or -1 for a full draw")
+    public int page = -1;
+
+    @Label("Items")
+    public int items;
+}
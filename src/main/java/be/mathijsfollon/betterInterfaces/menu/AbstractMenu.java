@@ -1,12 +1,20 @@
 package be.mathijsfollon.betterInterfaces.menu;
 
 import be.mathijsfollon.betterInterfaces.api.Menu;
+import be.mathijsfollon.betterInterfaces.api.MenuClickThrottle;
 import be.mathijsfollon.betterInterfaces.api.MenuItem;
 import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuService;
 import be.mathijsfollon.betterInterfaces.api.MenuSession;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEvent;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
 import be.mathijsfollon.betterInterfaces.events.MenuClickEvent;
 import be.mathijsfollon.betterInterfaces.events.MenuCloseEvent;
+import be.mathijsfollon.betterInterfaces.events.MenuEventPool;
+import be.mathijsfollon.betterInterfaces.jfr.MenuRenderJfrEvent;
+import be.mathijsfollon.betterInterfaces.metrics.MenuMetrics;
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Bukkit;
@@ -22,6 +30,7 @@ import org.bukkit.plugin.Plugin;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Abstract base class for Menu implementations.
@@ -29,13 +38,33 @@ import java.util.concurrent.ConcurrentHashMap;
  * Can be extended for custom menu behavior.
  */
 public abstract class AbstractMenu implements Menu, Listener {
+    private static final RenderLayer[] LAYERS = RenderLayer.values();
+
     protected final Inventory inventory;
+    // Composited view: the item of the highest layer in every slot. Change it through addItem/removeItem.
     protected final Map<Integer, MenuItem> items;
+    private final MenuItem[][] layers;
+    private final long[] dirtySlots;
+    private final ItemStack[] shownStacks;
+    // Per layer, the slots holding an item; kept up to date even while a batch defers composition
+    private final long[] layerSlots;
+    // Slots whose item stack was modified in place and must be written even if the reference is unchanged
+    private long staleSlots;
+    private int batchDepth;
+    private final SimpleMenuItem[] fillers;
+    // This menu's copy of every shared gradient stack it fills with, so handlers never see a shared stack
+    private final Map<ItemStack, ItemStack> fillerStacks;
+    protected final List<AnimatedMenuItem> animatedItems;
     protected final Player player;
     protected final MenuEventManager eventManager;
     protected final Plugin plugin;
+    protected final MenuScheduler scheduler;
     protected MenuSession session;
     protected MenuOpenContextStore context;
+    protected MenuClickThrottle clickThrottle;
+    protected MenuMetrics metrics;
+    protected MenuTracer tracer;
+    protected String menuId;
     protected boolean open;
     protected boolean uncloseable;
 
@@ -54,9 +83,17 @@ public abstract class AbstractMenu implements Menu, Listener {
         }
         this.inventory = Bukkit.createInventory(null, size, title);
         this.items = new ConcurrentHashMap<>();
+        this.layers = new MenuItem[LAYERS.length][size];
+        this.dirtySlots = new long[LAYERS.length];
+        this.layerSlots = new long[LAYERS.length];
+        this.shownStacks = new ItemStack[size];
+        this.fillers = new SimpleMenuItem[size];
+        this.fillerStacks = new IdentityHashMap<>();
+        this.animatedItems = new ArrayList<>();
         this.player = player;
         this.eventManager = eventManager;
         this.plugin = plugin;
+        this.scheduler = plugin != null ? MenuScheduler.of(plugin) : null;
         this.open = false;
         this.uncloseable = false;
         
@@ -76,8 +113,9 @@ public abstract class AbstractMenu implements Menu, Listener {
         ensureFilled();
 
         player.openInventory(inventory);
-        open = true;
+        setOpen(true);
         draw();
+        startAnimations();
     }
 
     /**
@@ -107,7 +145,7 @@ public abstract class AbstractMenu implements Menu, Listener {
 
         // If closing silently, mark as closed first to prevent reopening
         if (silently && uncloseable) {
-            open = false;
+            setOpen(false);
         }
 
         if (player.isOnline() && player.getOpenInventory().getTopInventory().equals(inventory)) {
@@ -115,7 +153,11 @@ public abstract class AbstractMenu implements Menu, Listener {
         }
         
         if (!silently || !uncloseable) {
-            open = false;
+            setOpen(false);
+        }
+
+        if (!open) {
+            stopAnimations();
         }
     }
 
@@ -132,70 +174,146 @@ public abstract class AbstractMenu implements Menu, Listener {
             return;
         }
 
-        // Clear the inventory first
-        inventory.clear();
+        MenuRenderJfrEvent render = new MenuRenderJfrEvent();
+        render.begin();
+        long traceStart = tracer != null ? tracer.start() : 0L;
 
-        // Fill all slots - first with empty air
-        for (int i = 0; i < inventory.getSize(); i++) {
-            inventory.setItem(i, null);
+        // Write the composited slot array in one call
+        for (int slot = 0; slot < shownStacks.length; slot++) {
+            MenuItem item = topItem(slot);
+            shownStacks[slot] = item != null ? item.getItemStack() : null;
         }
+        inventory.setContents(shownStacks);
 
-        // Place all menu items at their respective slots
-        for (MenuItem item : items.values()) {
-            if (item.getSlot() >= 0 && item.getSlot() < inventory.getSize()) {
-                inventory.setItem(item.getSlot(), item.getItemStack());
-            }
+        if (metrics != null) {
+            metrics.slotWrites(menuId, shownStacks.length);
+        }
+        if (tracer != null) {
+            tracer.record(context, "render", traceStart);
+        }
+
+        render.end();
+        if (render.shouldCommit()) {
+            render.describe(context, player);
+            render.items = items.size();
+            render.commit();
         }
     }
 
     /**
-     * Adds a menu item to this menu.
+     * Adds a menu item to the content layer of this menu.
      *
      * @param item the menu item to add
      */
     public void addItem(MenuItem item) {
+        addItem(RenderLayer.CONTENT, item);
+    }
+
+    /**
+     * Adds a menu item to a layer of this menu, replacing the item of that layer in the same slot.
+     * Only the slot is recomposed; the other layers are not touched. Adding the item that is already in the slot
+     * writes the slot again, so changes made to its stack in place are shown.
+     *
+     * @param layer the layer to add the item to
+     * @param item  the menu item to add
+     */
+    public void addItem(RenderLayer layer, MenuItem item) {
+        if (layer == null) {
+            throw new IllegalArgumentException("Layer cannot be null");
+        }
         if (item == null) {
             throw new IllegalArgumentException("Item cannot be null");
         }
-        
-        // If item already exists at this slot, remove it first
-        MenuItem existing = items.get(item.getSlot());
-        if (existing != null && existing != item) {
-            items.remove(item.getSlot());
+        int slot = item.getSlot();
+        if (slot < 0 || slot >= shownStacks.length) {
+            return; // Outside the inventory, never shown
         }
-        
-        items.put(item.getSlot(), item);
-        
-        // If menu is open, update the display
-        if (open) {
-            inventory.setItem(item.getSlot(), item.getItemStack());
+
+        MenuItem[] slots = layers[layer.ordinal()];
+        MenuItem existing = slots[slot];
+        if (existing != null && existing != item && existing instanceof AnimatedMenuItem animated) {
+            animatedItems.remove(animated);
+        }
+        if (existing == item) {
+            // Re-adding the same item after changing its stack in place: the shown stack may be the same
+            // instance, so force the slot to be written
+            staleSlots |= 1L << slot;
+        }
+        slots[slot] = item;
+        layerSlots[layer.ordinal()] |= 1L << slot;
+        dirtySlots[layer.ordinal()] |= 1L << slot;
+
+        if (item instanceof AnimatedMenuItem animated && !animatedItems.contains(animated)) {
+            animatedItems.add(animated);
+            // Start on the frame the shared clock is currently at, so all animations stay in sync
+            if (plugin != null) {
+                animated.advance(AnimationClock.tickOf(plugin, player));
+            }
+        }
+
+        compose();
+        if (open && item instanceof AnimatedMenuItem) {
+            startAnimations();
         }
     }
 
     /**
-     * Removes a menu item from this menu.
+     * Removes a menu item from the content layer of this menu.
      *
      * @param slot the slot to remove the item from
      */
     public void removeItem(int slot) {
-        MenuItem removed = items.remove(slot);
-        if (removed != null && open) {
-            inventory.setItem(slot, null);
+        removeItem(RenderLayer.CONTENT, slot);
+    }
+
+    /**
+     * Removes a menu item from a layer. The slot then shows the item of the next lower layer, if any.
+     *
+     * @param layer the layer to remove the item from
+     * @param slot  the slot to remove the item from
+     */
+    public void removeItem(RenderLayer layer, int slot) {
+        if (slot < 0 || slot >= shownStacks.length) {
+            return;
+        }
+        MenuItem[] slots = layers[layer.ordinal()];
+        MenuItem removed = slots[slot];
+        if (removed == null) {
+            return;
+        }
+        slots[slot] = null;
+        if (removed instanceof AnimatedMenuItem animated) {
+            animatedItems.remove(animated);
         }
+        layerSlots[layer.ordinal()] &= ~(1L << slot);
+        dirtySlots[layer.ordinal()] |= 1L << slot;
+        compose();
     }
 
     /**
-     * Gets a menu item at the specified slot.
+     * Gets the menu item shown at the specified slot.
      *
      * @param slot the slot index
      * @return the menu item, or null if no item at that slot
      */
     public MenuItem getItem(int slot) {
-        return items.get(slot);
+        MenuItem item = items.get(slot);
+        return item != null ? item : getBaseItem(slot);
+    }
+
+    /**
+     * Gets the menu item of a layer at the specified slot.
+     *
+     * @param layer the layer
+     * @param slot  the slot index
+     * @return the menu item, or null if the layer has no item at that slot
+     */
+    public MenuItem getItem(RenderLayer layer, int slot) {
+        return slot >= 0 && slot < shownStacks.length ? layers[layer.ordinal()][slot] : null;
     }
 
     /**
-     * Gets all menu items in this menu.
+     * Gets all menu items shown in this menu.
      *
      * @return a collection of all menu items
      */
@@ -204,12 +322,200 @@ public abstract class AbstractMenu implements Menu, Listener {
     }
 
     /**
-     * Clears all items from this menu.
+     * Clears all items from every layer of this menu.
      */
     public void clearItems() {
-        items.clear();
-        if (open) {
-            inventory.clear();
+        for (RenderLayer layer : LAYERS) {
+            clearSlots(layer);
+        }
+        compose();
+    }
+
+    /**
+     * Clears all items from one layer, leaving the other layers as they are.
+     *
+     * @param layer the layer to clear
+     */
+    public void clearLayer(RenderLayer layer) {
+        clearSlots(layer);
+        compose();
+    }
+
+    /**
+     * Writes the item stack of a slot to the inventory again, e.g. after changing the item's meta in place.
+     *
+     * @param slot the slot to update
+     */
+    public void updateItem(int slot) {
+        if (slot < 0 || slot >= shownStacks.length) {
+            return;
+        }
+        staleSlots |= 1L << slot;
+        compose();
+    }
+
+    /**
+     * Applies a group of changes to this menu at once.
+     * The changes are collected in the layers of the menu and only the net difference is written to the
+     * inventory when the batch ends, so a slot that is cleared, filled and overwritten is written once.
+     * {@link #getItem(int)} and {@link #getItems()} show the batched changes only after the batch ends.
+     *
+     * @param changes the changes to apply
+     */
+    public void batch(Consumer<AbstractMenu> changes) {
+        beginBatch();
+        try {
+            changes.accept(this);
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Starts a batch of changes, see {@link #batch(Consumer)}. Batches may be nested; every call must be matched
+     * by a call to {@link #commitBatch()}.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes. Ending the outermost batch writes the net difference to the inventory.
+     */
+    public void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        if (--batchDepth == 0) {
+            compose();
+        }
+    }
+
+    /**
+     * Checks if a batch of changes is in progress.
+     *
+     * @return true if changes are collected until the batch ends
+     */
+    public boolean isBatching() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * Gets the item of the highest layer in a slot, or the base item if no layer has one.
+     * Reads the layers directly, so it is correct while a batch is in progress.
+     */
+    private MenuItem topItem(int slot) {
+        MenuItem item = layerItem(slot);
+        return item != null ? item : getBaseItem(slot);
+    }
+
+    private MenuItem layerItem(int slot) {
+        for (int layer = layers.length - 1; layer >= 0; layer--) {
+            if (layers[layer][slot] != null) {
+                return layers[layer][slot];
+            }
+        }
+        return null;
+    }
+
+    private void clearSlots(RenderLayer layer) {
+        MenuItem[] slots = layers[layer.ordinal()];
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != null) {
+                if (slots[slot] instanceof AnimatedMenuItem animated) {
+                    animatedItems.remove(animated);
+                }
+                slots[slot] = null;
+                dirtySlots[layer.ordinal()] |= 1L << slot;
+            }
+        }
+        layerSlots[layer.ordinal()] = 0;
+    }
+
+    /**
+     * Gets the slots that show an item, in any layer or from the base.
+     *
+     * @return bitmask of the occupied slots
+     */
+    protected long getOccupiedSlots() {
+        long occupied = getBaseSlots();
+        for (long slots : layerSlots) {
+            occupied |= slots;
+        }
+        return occupied;
+    }
+
+    /**
+     * Gets the slots that have a base item, see {@link #getBaseItem(int)}. None by default.
+     *
+     * @return bitmask of the slots with a base item
+     */
+    protected long getBaseSlots() {
+        return 0L;
+    }
+
+    /**
+     * Gets the item shown in a slot when no layer has one. None by default.
+     * Menus showing a shared base underneath their layers override this.
+     *
+     * @param slot the slot index
+     * @return the base item, or null
+     */
+    protected MenuItem getBaseItem(int slot) {
+        return null;
+    }
+
+    /**
+     * Marks slots as changed, e.g. after the base items or the item stack of a menu item changed,
+     * and recomposes them.
+     *
+     * @param slots bitmask of the slots to recompose
+     */
+    protected void invalidateSlots(long slots) {
+        dirtySlots[RenderLayer.BACKGROUND.ordinal()] |= slots;
+        compose();
+    }
+
+    /**
+     * Recomposes the dirty slots of all layers: every dirty slot takes the item of its highest layer,
+     * and is written to the inventory if the menu is open and the slot shows a different item stack.
+     * Lower layers are not re-rendered; their items are kept in their slot arrays.
+     */
+    protected void compose() {
+        if (batchDepth > 0) {
+            return; // Applied once when the batch commits
+        }
+        long dirty = staleSlots;
+        for (int layer = 0; layer < dirtySlots.length; layer++) {
+            dirty |= dirtySlots[layer];
+            dirtySlots[layer] = 0;
+        }
+        if (dirty == 0) {
+            return;
+        }
+        long stale = staleSlots;
+        staleSlots = 0;
+
+        int writes = 0;
+        for (long remaining = dirty; remaining != 0; remaining &= remaining - 1) {
+            int slot = Long.numberOfTrailingZeros(remaining);
+            MenuItem top = layerItem(slot);
+            if (top != null) {
+                items.put(slot, top);
+            } else {
+                items.remove(slot);
+                top = getBaseItem(slot);
+            }
+
+            ItemStack stack = top != null ? top.getItemStack() : null;
+            if (open && (shownStacks[slot] != stack || (stale & (1L << slot)) != 0)) {
+                inventory.setItem(slot, stack);
+                shownStacks[slot] = stack;
+                writes++;
+            }
+        }
+        if (metrics != null && writes > 0) {
+            metrics.slotWrites(menuId, writes);
         }
     }
 
@@ -258,7 +564,13 @@ public abstract class AbstractMenu implements Menu, Listener {
             return;
         }
 
-        MenuItem menuItem = items.get(slot);
+        // Drop clicks from players clicking faster than allowed before doing any work
+        if (!admitClick(slot)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        MenuItem menuItem = getItem(slot);
         
         // Check for close/back buttons first
         if (session != null && context != null) {
@@ -274,40 +586,36 @@ public abstract class AbstractMenu implements Menu, Listener {
         
         // Fire menu click event if session and context are available
         if (session != null && context != null) {
-            MenuClickEvent clickEvent = new MenuClickEvent(
-                    player,
-                    this,
-                    session,
-                    context,
-                    slot,
-                    event.getCurrentItem(),
-                    menuItem,
-                    event.getClick()
-            );
-            
-            eventManager.fireEvent(clickEvent);
+            // Only build the event if a handler will receive it; the clicked item is resolved lazily
+            boolean cancelled = false;
+            if (hasHandlers(MenuClickEvent.class)) {
+                MenuClickEvent clickEvent = MenuEventPool.of(eventManager).acquireClickEvent(
+                        player,
+                        this,
+                        session,
+                        context,
+                        slot,
+                        event::getCurrentItem,
+                        menuItem,
+                        event.getClick()
+                );
+
+                eventManager.fireEvent(clickEvent);
+                cancelled = clickEvent.isCancelled();
+                MenuEventPool.of(eventManager).release(clickEvent);
+            }
 
             // Handle cancellation and item movement
             // Always cancel if MenuClickEvent was cancelled, or if item is not movable
             // Also cancel ALL clicks if menu is uncloseable (like confirmation menus)
-            if (clickEvent.isCancelled() || (menuItem != null && !menuItem.isMovable()) || uncloseable) {
+            if (cancelled || (menuItem != null && !menuItem.isMovable()) || uncloseable) {
                 event.setCancelled(true);
             }
 
             // Update item display after click to prevent item movement
             // Do this for all menu items, or if menu is uncloseable (to prevent item theft)
             if (open && (menuItem != null || uncloseable)) {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    if (player.isOnline() && player.getOpenInventory().getTopInventory().equals(inventory)) {
-                        if (menuItem != null) {
-                            inventory.setItem(slot, menuItem.getItemStack());
-                        } else {
-                            // If no menu item but menu is uncloseable, restore the slot (prevent item removal)
-                            inventory.setItem(slot, null);
-                        }
-                        player.updateInventory();
-                    }
-                });
+                requestSlotRestore(slot);
             }
         } else {
             // If session/context not set, default behavior: prevent movement of non-movable items
@@ -317,6 +625,42 @@ public abstract class AbstractMenu implements Menu, Listener {
         }
     }
 
+    /**
+     * Requests that a slot is restored to its menu item at the end of the tick.
+     * Requests are coalesced, so repeated clicks cost at most one write per slot
+     * and one inventory update per player per tick.
+     *
+     * @param slot the slot to restore
+     */
+    protected void requestSlotRestore(int slot) {
+        if (plugin != null && slot >= 0 && slot < inventory.getSize()) {
+            SlotRestoreQueue.of(plugin, player).request(this, slot);
+        }
+    }
+
+    /**
+     * Restores the given slots to their current menu items and resyncs the player once.
+     * Slots without a menu item are cleared (prevents item removal).
+     *
+     * @param slots bitmask of the slots to restore
+     */
+    void restoreSlots(long slots) {
+        if (!open || !player.isOnline() || !player.getOpenInventory().getTopInventory().equals(inventory)) {
+            return;
+        }
+
+        for (long remaining = slots; remaining != 0; remaining &= remaining - 1) {
+            int slot = Long.numberOfTrailingZeros(remaining);
+            MenuItem menuItem = getItem(slot);
+            shownStacks[slot] = menuItem != null ? menuItem.getItemStack() : null;
+            inventory.setItem(slot, shownStacks[slot]);
+        }
+        if (metrics != null) {
+            metrics.slotWrites(menuId, Long.bitCount(slots));
+        }
+        player.updateInventory();
+    }
+
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
         if (!event.getInventory().equals(inventory)) {
@@ -334,15 +678,17 @@ public abstract class AbstractMenu implements Menu, Listener {
 
         // If menu is uncloseable and we're not marked as closed, reopen it
         if (uncloseable) {
-            // Schedule reopening on next tick
-            Bukkit.getScheduler().runTask(plugin, () -> {
+            // Schedule reopening on next tick, on the thread owning the player
+            scheduler.run(player, () -> {
                 if (player.isOnline() && session != null && context != null && open) {
                     // Fire close event (but it won't actually close since we're reopening)
-                    MenuCloseEvent closeEvent = new MenuCloseEvent(player, this, session, context, false);
+                    MenuCloseEvent closeEvent = MenuEventPool.of(eventManager).acquireCloseEvent(player, this, session, context, false);
                     eventManager.fireEvent(closeEvent);
+                    boolean cancelled = closeEvent.isCancelled();
+                    MenuEventPool.of(eventManager).release(closeEvent);
                     
                     // Only reopen if the event wasn't cancelled
-                    if (!closeEvent.isCancelled()) {
+                    if (!cancelled) {
                         player.openInventory(inventory);
                         open = true;
                     }
@@ -352,15 +698,124 @@ public abstract class AbstractMenu implements Menu, Listener {
         }
 
         // Mark as closed and fire close event
-        open = false;
+        setOpen(false);
+        stopAnimations();
         
         // Fire close event if we have session and context
-        if (session != null && context != null) {
-            MenuCloseEvent closeEvent = new MenuCloseEvent(player, this, session, context, false);
+        if (session != null && context != null && hasHandlers(MenuCloseEvent.class)) {
+            MenuCloseEvent closeEvent = MenuEventPool.of(eventManager).acquireCloseEvent(player, this, session, context, false);
             eventManager.fireEvent(closeEvent);
+            MenuEventPool.of(eventManager).release(closeEvent);
+        }
+    }
+
+    /**
+     * Adds an animated item at the specified slot.
+     * The animation is driven by the shared animation clock and only runs while the menu is visible.
+     *
+     * @param slot      the slot to place the animation
+     * @param animation the animation to play
+     * @return the created AnimatedMenuItem
+     */
+    public AnimatedMenuItem addAnimation(int slot, Animation animation) {
+        AnimatedMenuItem menuItem = new AnimatedMenuItem(slot, animation, false);
+        addItem(menuItem);
+        return menuItem;
+    }
+
+    /**
+     * Adds a rotating border around the edge of the menu.
+     * Every border slot plays the same pattern, shifted by its position along the border,
+     * so the pattern appears to travel clockwise around the menu.
+     *
+     * @param ticksPerFrame how many ticks before the pattern moves one slot
+     * @param pattern       the repeating pattern of items (at least one item)
+     */
+    public void addRotatingBorder(int ticksPerFrame, ItemStack... pattern) {
+        Animation animation = Animation.of(ticksPerFrame, pattern);
+        List<Integer> borderSlots = getBorderSlots();
+        for (int i = 0; i < borderSlots.size(); i++) {
+            // Negative offset makes the pattern move forward along the border
+            addAnimation(borderSlots.get(i), animation.withOffset(-i));
+        }
+    }
+
+    /**
+     * Gets the border slots of this menu in clockwise order, starting at the top left corner.
+     *
+     * @return the border slots
+     */
+    private List<Integer> getBorderSlots() {
+        int rows = inventory.getSize() / 9;
+        List<Integer> slots = new ArrayList<>();
+        for (int column = 0; column < 9; column++) {
+            slots.add(column);
+        }
+        if (rows == 1) {
+            return slots;
+        }
+        for (int row = 1; row < rows; row++) {
+            slots.add(row * 9 + 8);
+        }
+        for (int column = 7; column >= 0; column--) {
+            slots.add((rows - 1) * 9 + column);
+        }
+        for (int row = rows - 2; row >= 1; row--) {
+            slots.add(row * 9);
+        }
+        return slots;
+    }
+
+    /**
+     * Subscribes this menu to the shared animation clock if it has animated items.
+     */
+    protected void startAnimations() {
+        if (open && plugin != null && !animatedItems.isEmpty()) {
+            AnimationClock.of(plugin, player).subscribe(this);
         }
     }
 
+    /**
+     * Unsubscribes this menu from the shared animation clock.
+     */
+    protected void stopAnimations() {
+        if (plugin != null) {
+            AnimationClock.of(plugin, player).unsubscribe(this);
+        }
+    }
+
+    /**
+     * Advances all animated items to the given clock tick.
+     * Only slots whose frame changed are pushed to the inventory, and nothing is pushed
+     * while the player is looking at another inventory.
+     *
+     * @param tick the clock tick
+     * @return false if this menu is no longer open and should leave the clock
+     */
+    boolean tickAnimations(long tick) {
+        if (!open || animatedItems.isEmpty()) {
+            return false;
+        }
+
+        // Pause while the menu is not visible; frames are derived from the clock so we resume in sync
+        if (!player.isOnline() || !player.getOpenInventory().getTopInventory().equals(inventory)) {
+            return true;
+        }
+
+        int writes = 0;
+        for (AnimatedMenuItem item : animatedItems) {
+            if (item.advance(tick) && items.get(item.getSlot()) == item) {
+                shownStacks[item.getSlot()] = item.getItemStack();
+                inventory.setItem(item.getSlot(), item.getItemStack());
+                writes++;
+            }
+        }
+        if (metrics != null) {
+            metrics.slotWrites(menuId, writes);
+        }
+        return true;
+    }
+
     /**
      * Sets the session and context for event handling.
      * This should be called when the menu is created.
@@ -371,6 +826,75 @@ public abstract class AbstractMenu implements Menu, Listener {
     public void setSessionAndContext(MenuSession session, MenuOpenContextStore context) {
         this.session = session;
         this.context = context;
+        Optional<MenuService> service = context != null ? context.get("menu-service", MenuService.class) : Optional.empty();
+        this.clickThrottle = service.map(MenuService::getClickThrottle).orElse(null);
+        this.tracer = service.map(MenuService::getTracer).orElse(null);
+        this.menuId = context != null ? context.get("menu-id", String.class).orElse(null) : null;
+
+        // Every menu registers itself as a Bukkit listener, count it once for the leaked menus gauge
+        MenuMetrics serviceMetrics = service.map(MenuService::getMetrics).orElse(null);
+        if (serviceMetrics != null && metrics == null) {
+            serviceMetrics.menuCreated();
+        }
+        this.metrics = serviceMetrics;
+    }
+
+    /**
+     * Updates the open state, keeping the open menu metrics in sync.
+     *
+     * @param open the new open state
+     */
+    private void setOpen(boolean open) {
+        if (this.open == open) {
+            return;
+        }
+        this.open = open;
+        if (metrics != null) {
+            if (open) {
+                metrics.menuOpened(menuId);
+            } else {
+                metrics.menuClosed(menuId);
+            }
+        }
+        onOpenChanged(open);
+    }
+
+    /**
+     * Called when the menu is opened or closed, including when the player closes it or disconnects.
+     * Override this method to track open menus.
+     *
+     * @param open true if the menu was opened, false if it was closed
+     */
+    protected void onOpenChanged(boolean open) {
+        // By default, do nothing
+    }
+
+    /**
+     * Checks whether any handler listens to the given event type for this menu.
+     *
+     * @param eventType the event type
+     * @return true if firing an event of this type would reach a handler
+     */
+    protected boolean hasHandlers(Class<? extends MenuEvent> eventType) {
+        Class<?> definitionClass = context != null ? context.getMenuDefinitionClass().orElse(null) : null;
+        return eventManager.hasHandlers(eventType, definitionClass);
+    }
+
+    /**
+     * Checks a click against the click throttle of the menu service, and counts it if admitted.
+     * Rejected clicks should be cancelled without any further processing.
+     *
+     * @param slot the clicked slot
+     * @return true if the click may be processed
+     */
+    protected boolean admitClick(int slot) {
+        if (clickThrottle != null && clickThrottle.admit(player.getUniqueId(), menuId, slot) != MenuClickThrottle.Verdict.ADMITTED) {
+            return false;
+        }
+        if (metrics != null) {
+            metrics.click(menuId);
+        }
+        return true;
     }
 
     /**
@@ -420,126 +944,64 @@ public abstract class AbstractMenu implements Menu, Listener {
 
     /**
      * Fills all empty slots with the specified material.
+     * The fill is added to the {@link RenderLayer#BACKGROUND} layer, so items added later still show on top.
      *
      * @param material the material to fill with
      */
     public void fillEmptySlots(Material material) {
-        // Fill all empty slots
-        for (int i = 0; i < inventory.getSize(); i++) {
-            if (!items.containsKey(i)) {
-                ItemStack fillItem = new ItemStack(material);
-                fillItem.editMeta(meta -> {
-                    meta.displayName(Component.empty()); // No name
-                });
-                SimpleMenuItem fillMenuItem = new SimpleMenuItem(i, fillItem, false);
-                addItem(fillMenuItem);
-            }
-        }
+        fill(GradientFill.solid(material), RenderLayer.BACKGROUND, 0, inventory.getSize() / 9);
     }
 
     /**
      * Fills empty slots with a gradient of glass panes.
      * Creates a visual gradient effect from top to bottom.
+     * The fill is added to the {@link RenderLayer#BACKGROUND} layer, so items added later still show on top.
      *
      * @param startColor the starting glass pane color (top)
      * @param endColor the ending glass pane color (bottom)
      */
     public void fillGradient(Material startColor, Material endColor) {
-        List<Material> gradientColors = getGradientColors(startColor, endColor);
-        int totalSlots = inventory.getSize();
-        int rows = totalSlots / 9;
-
-        // Collect empty slots grouped by row (top to bottom)
-        List<List<Integer>> emptySlotsByRow = new ArrayList<>();
-        for (int row = 0; row < rows; row++) {
-            emptySlotsByRow.add(new ArrayList<>());
-        }
-
-        for (int i = 0; i < totalSlots; i++) {
-            if (!items.containsKey(i)) {
-                int row = i / 9;
-                emptySlotsByRow.get(row).add(i);
-            }
-        }
+        fill(GradientFill.between(startColor, endColor), RenderLayer.BACKGROUND, 0, inventory.getSize() / 9);
+    }
 
-        // Find rows that have empty slots
-        List<Integer> rowsWithEmptySlots = new ArrayList<>();
+    /**
+     * Fills the free slots of a range of rows, using the precomputed plan of the gradient for the rows that
+     * have free slots. The filler items of this menu, and its copies of the gradient stacks, are reused
+     * between fills.
+     *
+     * @param gradient the gradient to fill with
+     * @param layer    the layer to add the fillers to
+     * @param firstRow the first row to fill
+     * @param rows     the number of rows to fill
+     */
+    void fill(GradientFill gradient, RenderLayer layer, int firstRow, int rows) {
+        long free = ~getOccupiedSlots() & (-1L >>> (64 - rows * 9)) << (firstRow * 9);
+        int freeRows = 0;
         for (int row = 0; row < rows; row++) {
-            if (!emptySlotsByRow.get(row).isEmpty()) {
-                rowsWithEmptySlots.add(row);
+            if ((free >>> ((firstRow + row) * 9) & 0x1FF) != 0) {
+                freeRows |= 1 << row;
             }
         }
-
-        if (rowsWithEmptySlots.isEmpty()) {
+        if (freeRows == 0) {
             return;
         }
 
-        // Fill slots with gradient from top to bottom
-        for (int rowIndex = 0; rowIndex < rowsWithEmptySlots.size(); rowIndex++) {
-            int row = rowsWithEmptySlots.get(rowIndex);
-            int colorIndex;
-            if (rowsWithEmptySlots.size() == 1) {
-                colorIndex = 0;
+        ItemStack[] plan = gradient.plan(rows, freeRows);
+        for (long remaining = free; remaining != 0; remaining &= remaining - 1) {
+            int slot = Long.numberOfTrailingZeros(remaining);
+            ItemStack stack = fillerStacks.computeIfAbsent(plan[slot / 9 - firstRow], ItemStack::clone);
+            SimpleMenuItem filler = fillers[slot];
+            if (filler == null) {
+                filler = new SimpleMenuItem(slot, stack, false); // false = not movable
+                fillers[slot] = filler;
             } else {
-                colorIndex = (rowIndex * (gradientColors.size() - 1)) / (rowsWithEmptySlots.size() - 1);
-            }
-            Material color = gradientColors.get(Math.min(colorIndex, gradientColors.size() - 1));
-
-            // Fill all empty slots in this row with the same color (non-movable)
-            for (int slot : emptySlotsByRow.get(row)) {
-                ItemStack fillItem = new ItemStack(color);
-                fillItem.editMeta(meta -> {
-                    meta.displayName(Component.empty());
-                });
-                SimpleMenuItem fillMenuItem = new SimpleMenuItem(slot, fillItem, false); // false = not movable
-                addItem(fillMenuItem);
+                // The slot is free, so no layer holds this filler right now
+                filler.setItemStack(stack);
             }
+            addItem(layer, filler);
         }
     }
 
-    /**
-     * Gets a list of glass pane materials forming a gradient between two colors.
-     *
-     * @param start the start color
-     * @param end the end color
-     * @return list of materials forming the gradient
-     */
-    private List<Material> getGradientColors(Material start, Material end) {
-        // Common glass pane colors for gradients
-        List<Material> colors = Arrays.asList(
-            Material.WHITE_STAINED_GLASS_PANE,
-            Material.LIGHT_GRAY_STAINED_GLASS_PANE,
-            Material.GRAY_STAINED_GLASS_PANE,
-            Material.BLACK_STAINED_GLASS_PANE,
-            Material.BROWN_STAINED_GLASS_PANE,
-            Material.RED_STAINED_GLASS_PANE,
-            Material.ORANGE_STAINED_GLASS_PANE,
-            Material.YELLOW_STAINED_GLASS_PANE,
-            Material.LIME_STAINED_GLASS_PANE,
-            Material.GREEN_STAINED_GLASS_PANE,
-            Material.CYAN_STAINED_GLASS_PANE,
-            Material.LIGHT_BLUE_STAINED_GLASS_PANE,
-            Material.BLUE_STAINED_GLASS_PANE,
-            Material.PURPLE_STAINED_GLASS_PANE,
-            Material.MAGENTA_STAINED_GLASS_PANE,
-            Material.PINK_STAINED_GLASS_PANE
-        );
-
-        int startIndex = colors.indexOf(start);
-        int endIndex = colors.indexOf(end);
-
-        if (startIndex == -1) startIndex = 0;
-        if (endIndex == -1) endIndex = colors.size() - 1;
-
-        if (startIndex > endIndex) {
-            int temp = startIndex;
-            startIndex = endIndex;
-            endIndex = temp;
-        }
-
-        return colors.subList(startIndex, endIndex + 1);
-    }
-
     /**
      * Adds a close button at the specified slot.
      * Clicking this button will close the menu.
@@ -566,7 +1028,7 @@ public abstract class AbstractMenu implements Menu, Listener {
         });
 
         SimpleMenuItem menuItem = new SimpleMenuItem(slot, closeItem, false);
-        addItem(menuItem);
+        addItem(RenderLayer.CONTROLS, menuItem);
 
         // Store close button slot in context for handleCloseButton to work
         if (context != null) {
@@ -619,7 +1081,7 @@ public abstract class AbstractMenu implements Menu, Listener {
         });
 
         SimpleMenuItem menuItem = new SimpleMenuItem(slot, backItem, false);
-        addItem(menuItem);
+        addItem(RenderLayer.CONTROLS, menuItem);
 
         // Store back button slot in context (use this.context if available, otherwise the provided context)
         MenuOpenContextStore contextToStore = this.context != null ? this.context : contextToCheck;
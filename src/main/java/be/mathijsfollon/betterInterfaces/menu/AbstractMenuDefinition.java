@@ -3,6 +3,7 @@ package be.mathijsfollon.betterInterfaces.menu;
 import be.mathijsfollon.betterInterfaces.api.*;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventListener;
 import be.mathijsfollon.betterInterfaces.events.MenuOpenEvent;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.entity.Player;
@@ -89,17 +90,35 @@ public abstract class AbstractMenuDefinition implements MenuDefinition, MenuEven
             throw new IllegalStateException("MenuService must be set in MenuOpenContextStore");
         }
 
-        // Create a simple menu by default
-        SimpleMenu menu = new SimpleMenu(
+        Menu menu = createMenu(player, service, plugin);
+
+        // Call onCreate for configuration
+        MenuTracer tracer = service.getTracer();
+        long traceStart = tracer != null ? tracer.start() : 0L;
+        Menu configured = onCreate(menu, ctx);
+        if (tracer != null) {
+            tracer.record(ctx, "onCreate", traceStart);
+        }
+        return configured;
+    }
+
+    /**
+     * Creates the menu instance that onCreate() configures.
+     * Creates a SimpleMenu by default; override to use another menu type.
+     *
+     * @param player The player the menu is for
+     * @param service The menu service
+     * @param plugin The plugin instance
+     * @return The new menu
+     */
+    protected Menu createMenu(Player player, MenuService service, Plugin plugin) {
+        return new SimpleMenu(
             getTitle(),
             getSize(),
             player,
             service.getEventManager(),
             plugin
         );
-
-        // Call onCreate for configuration
-        return onCreate(menu, ctx);
     }
 
     /**
@@ -3,10 +3,11 @@ package be.mathijsfollon.betterInterfaces.menu;
 import be.mathijsfollon.betterInterfaces.api.*;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
 import be.mathijsfollon.betterInterfaces.events.MenuClickEvent;
+import be.mathijsfollon.betterInterfaces.events.MenuEventPool;
+import be.mathijsfollon.betterInterfaces.jfr.MenuRenderJfrEvent;
 import be.mathijsfollon.betterInterfaces.menu.SimpleMenuItem;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -14,9 +15,9 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract base class for pageable menu implementations.
@@ -24,12 +25,31 @@ import java.util.concurrent.CompletableFuture;
  * Can be extended for custom pageable menu behavior.
  */
 public abstract class AbstractPageableMenu extends AbstractMenu implements PageableMenu {
+    private static final GradientFill CONTENT_FILL = new GradientFill(
+        Material.LIGHT_BLUE_STAINED_GLASS_PANE,
+        Material.BLUE_STAINED_GLASS_PANE,
+        Material.CYAN_STAINED_GLASS_PANE
+    );
+    private static final GradientFill NAVIGATION_FILL = GradientFill.solid(Material.BLACK_STAINED_GLASS_PANE);
+
     protected final List<MenuDefinition> pages;
+    protected PageSource pageSource;
     protected int currentPage;
     protected MenuItem previousItem;
     protected MenuItem nextItem;
     protected MenuItem closeItem;
     protected int contentSize; // Size of content area (excluding navigation row)
+    private final Runnable sourceListener = this::onPageSourceChanged;
+    private final AtomicBoolean redrawScheduled = new AtomicBoolean();
+    private boolean listening;
+    private int drawnSourceSize;
+    private boolean drawnNextPage;
+    // Scroll mode: the viewport moves by rows, rendered rows are kept in a ring buffer
+    private boolean scrollMode;
+    private int topRow;
+    private SimpleMenuItem[] rowRing;
+    private int ringHead;
+    private ItemStack scrollFiller;
 
     /**
      * Creates a new AbstractPageableMenu.
@@ -84,6 +104,258 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
         }
     }
 
+    /**
+     * Sets a source that provides the page content instead of the added pages.
+     * Only the entries on the visible page are rendered into item stacks.
+     *
+     * @param source the page source, or null to use the added pages again
+     */
+    public void setPageSource(PageSource source) {
+        stopListening();
+        this.pageSource = source;
+        this.currentPage = 0;
+        this.topRow = 0;
+        if (open) {
+            startListening();
+            drawCurrentPage();
+        }
+    }
+
+    /**
+     * Called by a growing page source when entries were added, possibly from another thread.
+     * Redraws are coalesced into at most one per tick and run on the thread owning the player.
+     */
+    private void onPageSourceChanged() {
+        if (redrawScheduled.compareAndSet(false, true)) {
+            scheduler.run(player, this::redrawStreamedPage);
+        }
+    }
+
+    /**
+     * Redraws the current page if the entries that were added are visible or enable the next button.
+     */
+    private void redrawStreamedPage() {
+        redrawScheduled.set(false);
+        if (!open || pageSource == null) {
+            stopListening();
+            return;
+        }
+
+        int pageEnd = firstVisibleIndex() + contentSize;
+        boolean visibleChanged = drawnSourceSize < pageEnd && pageSource.size() > drawnSourceSize;
+        if (visibleChanged || hasNextPage() != drawnNextPage) {
+            drawCurrentPage();
+        }
+        if (pageSource.isComplete()) {
+            stopListening();
+        }
+    }
+
+    private void startListening() {
+        if (!listening && pageSource != null && !pageSource.isComplete()) {
+            pageSource.addListener(sourceListener);
+            listening = true;
+        }
+    }
+
+    private void stopListening() {
+        if (listening) {
+            pageSource.removeListener(sourceListener);
+            listening = false;
+        }
+    }
+
+    /**
+     * Gets the page source.
+     *
+     * @return the page source, or null if the menu shows its added pages
+     */
+    public PageSource getPageSource() {
+        return pageSource;
+    }
+
+    /**
+     * Gets the index in the page source of the entry shown in a slot.
+     *
+     * @param slot the slot
+     * @return the entry index, or -1 if the slot does not show a page source entry
+     */
+    public int getSourceIndex(int slot) {
+        if (pageSource == null || slot < 0 || slot >= contentSize) {
+            return -1;
+        }
+        int index = firstVisibleIndex() + slot;
+        return index < pageSource.size() ? index : -1;
+    }
+
+    /**
+     * Enables or disables scroll mode.
+     * In scroll mode, the previous and next buttons move the view by one row instead of a whole page.
+     * Only the entries of the row that scrolls into view are rendered, the other rows reuse the item stacks
+     * that are already shown. Moving the view still changes what every content slot shows, so all content
+     * slots are written to the inventory, in one batch. Scroll mode only applies to menus with a page source.
+     *
+     * @param scrollMode true to scroll by rows
+     */
+    public void setScrollMode(boolean scrollMode) {
+        if (this.scrollMode == scrollMode) {
+            return;
+        }
+        this.scrollMode = scrollMode;
+        // Keep the first visible row in view when switching, without scrolling past the last row
+        this.topRow = currentPage * (contentSize / 9);
+        if (pageSource != null) {
+            this.topRow = Math.min(topRow, lastTopRow());
+        }
+        this.rowRing = null;
+        if (open && pageSource != null) {
+            drawCurrentPage();
+        }
+    }
+
+    /**
+     * Checks whether the menu scrolls by rows.
+     *
+     * @return true if scroll mode is enabled
+     */
+    public boolean isScrollMode() {
+        return scrollMode;
+    }
+
+    /**
+     * Scrolls the view by a number of rows. Has no effect outside of scroll mode.
+     * The view is clamped to the first and last row of the page source.
+     *
+     * @param rows the number of rows to scroll, negative to scroll up
+     */
+    public void scroll(int rows) {
+        if (!isScrolling()) {
+            return;
+        }
+        int contentRows = contentSize / 9;
+        int target = Math.max(0, Math.min(topRow + rows, lastTopRow()));
+        int delta = target - topRow;
+        if (delta == 0) {
+            return;
+        }
+
+        // Jumps of a full view or more share no rows with the current view
+        if (!open || rowRing == null || Math.abs(delta) >= contentRows) {
+            topRow = target;
+            currentPage = topRow / contentRows;
+            drawCurrentPage();
+            return;
+        }
+
+        boolean hadPrevious = hasPreviousPage();
+        boolean hadNext = hasNextPage();
+        for (int step = 0; step < Math.abs(delta); step++) {
+            if (delta > 0) {
+                // The old top row is recycled as the new bottom row
+                topRow++;
+                ringHead = (ringHead + 1) % contentRows;
+                renderRow((ringHead + contentRows - 1) % contentRows, topRow + contentRows - 1);
+            } else {
+                topRow--;
+                ringHead = (ringHead + contentRows - 1) % contentRows;
+                renderRow(ringHead, topRow);
+            }
+        }
+        currentPage = topRow / contentRows;
+
+        // Move the rendered rows into place; slots that already show the same stack are not written
+        beginBatch();
+        try {
+            for (int row = 0; row < contentRows; row++) {
+                int ringRow = (ringHead + row) % contentRows;
+                for (int column = 0; column < 9; column++) {
+                    SimpleMenuItem item = rowRing[ringRow * 9 + column];
+                    item.setSlot(row * 9 + column);
+                    addItem(item);
+                }
+            }
+
+            if (hadPrevious != hasPreviousPage()) {
+                updateScrollButton(contentSize + 3, hasPreviousPage(), previousItem);
+            }
+            if (hadNext != hasNextPage()) {
+                updateScrollButton(contentSize + 5, hasNextPage(), nextItem);
+            }
+        } finally {
+            commitBatch();
+        }
+        drawnSourceSize = Math.min(pageSource.size(), firstVisibleIndex() + contentSize);
+        drawnNextPage = hasNextPage();
+    }
+
+    private boolean isScrolling() {
+        return scrollMode && pageSource != null;
+    }
+
+    /**
+     * Gets the index in the page source of the entry shown in the first content slot.
+     */
+    private int firstVisibleIndex() {
+        return isScrolling() ? topRow * 9 : currentPage * contentSize;
+    }
+
+    /**
+     * Gets the highest row that can be at the top of the view in scroll mode.
+     */
+    private int lastTopRow() {
+        int sourceRows = pageSource.isComplete()
+                ? (pageSource.size() + 8) / 9
+                : pageSource.size() / 9; // A growing source only scrolls to full rows
+        return Math.max(0, sourceRows - contentSize / 9);
+    }
+
+    /**
+     * Renders a row of the page source into a row of the ring buffer, reusing its menu items.
+     *
+     * @param ringRow   the row in the ring buffer
+     * @param sourceRow the row in the page source
+     */
+    private void renderRow(int ringRow, int sourceRow) {
+        int size = pageSource.size();
+        for (int column = 0; column < 9; column++) {
+            int index = sourceRow * 9 + column;
+            ItemStack stack = index < size ? pageSource.render(index) : null;
+            if (stack == null) {
+                stack = scrollFiller();
+            }
+            SimpleMenuItem item = rowRing[ringRow * 9 + column];
+            if (item == null) {
+                rowRing[ringRow * 9 + column] = new SimpleMenuItem(-1, stack, false);
+            } else {
+                item.setItemStack(stack);
+            }
+        }
+    }
+
+    /**
+     * Gets the pane shown after the last entry in scroll mode.
+     * One shared stack is used, so scrolling over empty slots writes nothing.
+     */
+    private ItemStack scrollFiller() {
+        if (scrollFiller == null) {
+            scrollFiller = new ItemStack(Material.LIGHT_BLUE_STAINED_GLASS_PANE);
+            scrollFiller.editMeta(meta -> meta.displayName(Component.empty()));
+        }
+        return scrollFiller;
+    }
+
+    private void updateScrollButton(int slot, boolean visible, MenuItem button) {
+        if (visible && button != null) {
+            addItem(RenderLayer.CONTROLS, new SimpleMenuItem(slot, button.getItemStack(), false));
+            return;
+        }
+        ItemStack fillItem = new ItemStack(Material.BLACK_STAINED_GLASS_PANE);
+        fillItem.editMeta(meta -> {
+            meta.displayName(Component.empty());
+        });
+        addItem(RenderLayer.CONTROLS, new SimpleMenuItem(slot, fillItem, false));
+    }
+
     /**
      * Sets the navigation items for the bottom row.
      *
@@ -121,10 +393,17 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
 
     /**
      * Gets the total number of pages.
+     * While a page source is still growing, only full pages are counted, so the count increases as entries arrive.
      *
      * @return the number of pages
      */
     public int getPageCount() {
+        if (pageSource != null && !pageSource.isComplete()) {
+            return Math.max(1, pageSource.size() / contentSize);
+        }
+        if (pageSource != null) {
+            return Math.max(1, (pageSource.size() + contentSize - 1) / contentSize);
+        }
         return pages.size();
     }
 
@@ -134,10 +413,13 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
      * @param pageIndex the page index to navigate to (0-based)
      */
     public void goToPage(int pageIndex) {
-        if (pageIndex < 0 || pageIndex >= pages.size()) {
+        if (pageIndex < 0 || pageIndex >= getPageCount()) {
             throw new IllegalArgumentException("Page index out of bounds: " + pageIndex);
         }
         this.currentPage = pageIndex;
+        if (isScrolling()) {
+            this.topRow = Math.min(pageIndex * (contentSize / 9), lastTopRow());
+        }
         drawCurrentPage();
     }
 
@@ -145,7 +427,9 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
      * Navigates to the next page if available.
      */
     public void nextPage() {
-        if (hasNextPage()) {
+        if (isScrolling()) {
+            scroll(1);
+        } else if (hasNextPage()) {
             goToPage(currentPage + 1);
         }
     }
@@ -154,26 +438,34 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
      * Navigates to the previous page if available.
      */
     public void previousPage() {
-        if (hasPreviousPage()) {
+        if (isScrolling()) {
+            scroll(-1);
+        } else if (hasPreviousPage()) {
             goToPage(currentPage - 1);
         }
     }
 
     /**
-     * Checks if there is a next page.
+     * Checks if there is a next page. In scroll mode, checks if the view can scroll down.
      *
      * @return true if there is a next page
      */
     public boolean hasNextPage() {
-        return currentPage < pages.size() - 1;
+        if (isScrolling()) {
+            return topRow < lastTopRow();
+        }
+        return currentPage < getPageCount() - 1;
     }
 
     /**
-     * Checks if there is a previous page.
+     * Checks if there is a previous page. In scroll mode, checks if the view can scroll up.
      *
      * @return true if there is a previous page
      */
     public boolean hasPreviousPage() {
+        if (isScrolling()) {
+            return topRow > 0;
+        }
         return currentPage > 0;
     }
 
@@ -181,11 +473,60 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
      * Draws the current page and navigation row.
      */
     public void drawCurrentPage() {
+        MenuRenderJfrEvent render = new MenuRenderJfrEvent();
+        render.begin();
+        long traceStart = tracer != null ? tracer.start() : 0L;
+
+        // Collect the whole page, then write only the slots that differ from what is shown
+        batch(menu -> layoutCurrentPage());
+
+        if (tracer != null) {
+            tracer.record(context, "render", traceStart);
+        }
+        render.end();
+        if (render.shouldCommit()) {
+            render.describe(context, player);
+            render.page = currentPage;
+            render.items = items.size();
+            render.commit();
+        }
+    }
+
+    /**
+     * Lays out the items of the current page and the navigation row.
+     */
+    private void layoutCurrentPage() {
         // Clear all items first
         clearItems();
 
         // Draw current page content
-        if (!pages.isEmpty() && currentPage < pages.size()) {
+        if (isScrolling()) {
+            // Render every visible row into a fresh ring buffer
+            int contentRows = contentSize / 9;
+            rowRing = new SimpleMenuItem[contentSize];
+            ringHead = 0;
+            for (int row = 0; row < contentRows; row++) {
+                renderRow(row, topRow + row);
+            }
+            for (int slot = 0; slot < contentSize; slot++) {
+                rowRing[slot].setSlot(slot);
+                addItem(rowRing[slot]);
+            }
+            drawnSourceSize = Math.min(pageSource.size(), firstVisibleIndex() + contentSize);
+            drawnNextPage = hasNextPage();
+        } else if (pageSource != null) {
+            // Only materialize the entries of the visible page
+            int start = currentPage * contentSize;
+            int end = Math.min(pageSource.size(), start + contentSize);
+            drawnSourceSize = end;
+            drawnNextPage = hasNextPage();
+            for (int index = start; index < end; index++) {
+                ItemStack item = pageSource.render(index);
+                if (item != null) {
+                    addItem(new SimpleMenuItem(index - start, item, false));
+                }
+            }
+        } else if (!pages.isEmpty() && currentPage < pages.size()) {
             MenuDefinition page = pages.get(currentPage);
             List<ItemStack> items = page.getItemStacks();
 
@@ -206,68 +547,13 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
 
         // Draw navigation row
         drawNavigationRow();
-
-        // Update display
-        draw();
     }
 
     /**
      * Fills empty content area slots with a gradient from top to bottom.
      */
     private void fillContentAreaGradient() {
-        List<Material> gradientColors = Arrays.asList(
-            Material.LIGHT_BLUE_STAINED_GLASS_PANE,
-            Material.BLUE_STAINED_GLASS_PANE,
-            Material.CYAN_STAINED_GLASS_PANE
-        );
-
-        int contentRows = contentSize / 9;
-
-        // Collect empty slots grouped by row (top to bottom)
-        List<List<Integer>> emptySlotsByRow = new ArrayList<>();
-        for (int row = 0; row < contentRows; row++) {
-            emptySlotsByRow.add(new ArrayList<>());
-        }
-
-        for (int i = 0; i < contentSize; i++) {
-            if (!items.containsKey(i)) {
-                int row = i / 9;
-                emptySlotsByRow.get(row).add(i);
-            }
-        }
-
-        // Find rows that have empty slots
-        List<Integer> rowsWithEmptySlots = new ArrayList<>();
-        for (int row = 0; row < contentRows; row++) {
-            if (!emptySlotsByRow.get(row).isEmpty()) {
-                rowsWithEmptySlots.add(row);
-            }
-        }
-
-        if (rowsWithEmptySlots.isEmpty()) {
-            return;
-        }
-
-        // Fill slots with gradient from top to bottom
-        for (int rowIndex = 0; rowIndex < rowsWithEmptySlots.size(); rowIndex++) {
-            int row = rowsWithEmptySlots.get(rowIndex);
-            int colorIndex;
-            if (rowsWithEmptySlots.size() == 1) {
-                colorIndex = 0;
-            } else {
-                colorIndex = (rowIndex * (gradientColors.size() - 1)) / (rowsWithEmptySlots.size() - 1);
-            }
-            Material color = gradientColors.get(Math.min(colorIndex, gradientColors.size() - 1));
-
-            // Fill all empty slots in this row with the same color
-            for (int slot : emptySlotsByRow.get(row)) {
-                ItemStack fillItem = new ItemStack(color);
-                fillItem.editMeta(meta -> {
-                    meta.displayName(Component.empty());
-                });
-                addItem(new SimpleMenuItem(slot, fillItem, false));
-            }
-        }
+        fill(CONTENT_FILL, RenderLayer.BACKGROUND, 0, contentSize / 9);
     }
 
     /**
@@ -284,7 +570,7 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
                 meta.lore(List.of(LegacyComponentSerializer.legacyAmpersand().deserialize("§7Click to go back")));
             });
             MenuItem back = new SimpleMenuItem(navRowStart + 1, backItem, false);
-            addItem(back);
+            addItem(RenderLayer.CONTROLS, back);
             context.put("back-button-slot", navRowStart + 1);
         } else if (context != null && context.get("previous-session").isPresent()) {
             // Also check context for previous session (for menus opened before session is set)
@@ -294,20 +580,20 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
                 meta.lore(List.of(LegacyComponentSerializer.legacyAmpersand().deserialize("§7Click to go back")));
             });
             MenuItem back = new SimpleMenuItem(navRowStart + 1, backItem, false);
-            addItem(back);
+            addItem(RenderLayer.CONTROLS, back);
             context.put("back-button-slot", navRowStart + 1);
         }
 
         // Previous button (left side, slot 3 from left in navigation row = slot 3)
         if (hasPreviousPage() && previousItem != null) {
             MenuItem prev = new SimpleMenuItem(navRowStart + 3, previousItem.getItemStack(), false);
-            addItem(prev);
+            addItem(RenderLayer.CONTROLS, prev);
         }
 
         // Close button (center, slot 4 from left in navigation row = slot 4)
         if (closeItem != null) {
             MenuItem close = new SimpleMenuItem(navRowStart + 4, closeItem.getItemStack(), false);
-            addItem(close);
+            addItem(RenderLayer.CONTROLS, close);
             // Store close button slot in context for handleCloseButton to work
             if (context != null) {
                 context.put("close-button-slot", navRowStart + 4);
@@ -317,19 +603,11 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
         // Next button (right side, slot 5 from left in navigation row = slot 5)
         if (hasNextPage() && nextItem != null) {
             MenuItem next = new SimpleMenuItem(navRowStart + 5, nextItem.getItemStack(), false);
-            addItem(next);
+            addItem(RenderLayer.CONTROLS, next);
         }
 
         // Fill empty navigation row slots with glass panes
-        for (int i = navRowStart; i < navRowStart + 9; i++) {
-            if (!items.containsKey(i)) {
-                ItemStack fillItem = new ItemStack(Material.BLACK_STAINED_GLASS_PANE);
-                fillItem.editMeta(meta -> {
-                    meta.displayName(Component.empty());
-                });
-                addItem(new SimpleMenuItem(i, fillItem, false));
-            }
-        }
+        fill(NAVIGATION_FILL, RenderLayer.CONTROLS, navRowStart / 9, 1);
     }
 
     @Override
@@ -351,6 +629,12 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
             return;
         }
 
+        // Drop clicks from players clicking faster than allowed before doing any work
+        if (!admitClick(slot)) {
+            event.setCancelled(true);
+            return;
+        }
+
         int navRowStart = contentSize;
 
         // Check if click is in navigation row first, before firing MenuClickEvent
@@ -387,32 +671,33 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
         
         // Fire menu click event if session and context are available
         if (session != null && context != null) {
-            MenuClickEvent clickEvent = new MenuClickEvent(
-                    getPlayer(),
-                    this,
-                    session,
-                    context,
-                    slot,
-                    event.getCurrentItem(),
-                    menuItem,
-                    event.getClick()
-            );
-            
-            eventManager.fireEvent(clickEvent);
+            // Only build the event if a handler will receive it; the clicked item is resolved lazily
+            boolean cancelled = false;
+            if (hasHandlers(MenuClickEvent.class)) {
+                MenuClickEvent clickEvent = MenuEventPool.of(eventManager).acquireClickEvent(
+                        getPlayer(),
+                        this,
+                        session,
+                        context,
+                        slot,
+                        event::getCurrentItem,
+                        menuItem,
+                        event.getClick()
+                );
+
+                eventManager.fireEvent(clickEvent);
+                cancelled = clickEvent.isCancelled();
+                MenuEventPool.of(eventManager).release(clickEvent);
+            }
 
             // Handle cancellation and item movement
-            if (clickEvent.isCancelled() || (menuItem != null && !menuItem.isMovable())) {
+            if (cancelled || (menuItem != null && !menuItem.isMovable())) {
                 event.setCancelled(true);
             }
 
             // Update item display after click to prevent item movement
             if (open && menuItem != null) {
-                org.bukkit.Bukkit.getScheduler().runTask(plugin, () -> {
-                    if (getPlayer().isOnline() && getPlayer().getOpenInventory().getTopInventory().equals(getInventory())) {
-                        getInventory().setItem(slot, menuItem.getItemStack());
-                        getPlayer().updateInventory();
-                    }
-                });
+                requestSlotRestore(slot);
             }
         } else {
             // If session/context not set, default behavior: prevent movement of non-movable items
@@ -424,8 +709,9 @@ public abstract class AbstractPageableMenu extends AbstractMenu implements Pagea
 
     @Override
     public void open() {
-        // Draw the current page before opening
-        if (!pages.isEmpty()) {
+        // Draw the current page before opening; a growing source shows what it has so far
+        startListening();
+        if (!pages.isEmpty() || pageSource != null) {
             drawCurrentPage();
         }
         super.open();
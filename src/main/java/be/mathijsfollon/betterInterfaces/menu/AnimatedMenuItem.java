@@ -0,0 +1,90 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A menu item whose displayed ItemStack is driven by an {@link Animation}.
+ * The item always reports its current frame, so clicks and redraws see the same item the player sees.
+ */
+public class AnimatedMenuItem extends AbstractMenuItem {
+    private Animation animation;
+    private int currentFrame;
+
+    /**
+     * Creates a new AnimatedMenuItem at the specified slot.
+     *
+     * @param slot      the slot index
+     * @param animation the animation to play
+     */
+    public AnimatedMenuItem(int slot, Animation animation) {
+        this(slot, animation, false);
+    }
+
+    /**
+     * Creates a new AnimatedMenuItem at the specified slot.
+     *
+     * @param slot      the slot index
+     * @param animation the animation to play
+     * @param movable   whether the item can be moved
+     */
+    public AnimatedMenuItem(int slot, Animation animation, boolean movable) {
+        super(slot, null, movable);
+        if (animation == null) {
+            throw new IllegalArgumentException("Animation cannot be null");
+        }
+        this.animation = animation;
+        this.currentFrame = 0;
+    }
+
+    /**
+     * Advances this item to the frame for the given clock tick.
+     *
+     * @param tick the clock tick
+     * @return true if the visible frame changed and the slot needs to be pushed
+     */
+    boolean advance(long tick) {
+        int frame = animation.frameIndexAt(tick);
+        if (frame == currentFrame) {
+            return false;
+        }
+        currentFrame = frame;
+        return true;
+    }
+
+    /**
+     * Gets the animation played by this item.
+     *
+     * @return the animation
+     */
+    public Animation getAnimation() {
+        return animation;
+    }
+
+    /**
+     * Replaces the animation played by this item.
+     *
+     * @param animation the new animation
+     */
+    public void setAnimation(Animation animation) {
+        if (animation == null) {
+            throw new IllegalArgumentException("Animation cannot be null");
+        }
+        this.animation = animation;
+        this.currentFrame = 0;
+    }
+
+    @Override
+    public ItemStack getItemStack() {
+        return animation.getFrame(currentFrame);
+    }
+
+    /**
+     * Replaces the animation with a single static frame.
+     *
+     * @param itemStack the ItemStack to display
+     */
+    @Override
+    public void setItemStack(ItemStack itemStack) {
+        setAnimation(Animation.of(1, itemStack));
+    }
+}
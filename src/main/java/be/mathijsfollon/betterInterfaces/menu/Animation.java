@@ -0,0 +1,120 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * An immutable, precomputed sequence of frames for an animated menu slot.
+ * All frames are built once up front, so advancing an animation never creates new ItemStacks.
+ * The frame shown at a given tick is derived from the shared {@link AnimationClock} tick,
+ * which keeps every animation on the server in sync.
+ */
+public final class Animation {
+    private final ItemStack[] frames;
+    private final int ticksPerFrame;
+    private final int offset;
+
+    private Animation(ItemStack[] frames, int ticksPerFrame, int offset) {
+        this.frames = frames;
+        this.ticksPerFrame = ticksPerFrame;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates an animation that cycles through the given frames.
+     *
+     * @param ticksPerFrame how many server ticks each frame is shown (at least 1)
+     * @param frames        the frames to cycle through (null frames show an empty slot)
+     * @return the animation
+     */
+    public static Animation of(int ticksPerFrame, ItemStack... frames) {
+        if (ticksPerFrame < 1) {
+            throw new IllegalArgumentException("Ticks per frame must be at least 1");
+        }
+        if (frames == null || frames.length == 0) {
+            throw new IllegalArgumentException("Animation needs at least one frame");
+        }
+        return new Animation(frames.clone(), ticksPerFrame, 0);
+    }
+
+    /**
+     * Creates an animation that cycles through the given frames.
+     *
+     * @param ticksPerFrame how many server ticks each frame is shown (at least 1)
+     * @param frames        the frames to cycle through (null frames show an empty slot)
+     * @return the animation
+     */
+    public static Animation of(int ticksPerFrame, List<ItemStack> frames) {
+        if (frames == null) {
+            throw new IllegalArgumentException("Animation needs at least one frame");
+        }
+        return of(ticksPerFrame, frames.toArray(new ItemStack[0]));
+    }
+
+    /**
+     * Creates a blinking animation that alternates between an item and an "off" item.
+     *
+     * @param item          the item shown while "on"
+     * @param off           the item shown while "off" (can be null for an empty slot)
+     * @param ticksPerFrame how many server ticks each state is shown
+     * @return the animation
+     */
+    public static Animation blink(ItemStack item, ItemStack off, int ticksPerFrame) {
+        return of(ticksPerFrame, item, off);
+    }
+
+    /**
+     * Returns a copy of this animation that starts a number of frames further.
+     * The frames themselves are shared, which makes this cheap to use for rotating
+     * patterns where every slot shows the same sequence shifted by its position.
+     *
+     * @param frameOffset the number of frames to shift by
+     * @return the shifted animation
+     */
+    public Animation withOffset(int frameOffset) {
+        int normalized = Math.floorMod(offset + frameOffset, frames.length);
+        return new Animation(frames, ticksPerFrame, normalized);
+    }
+
+    /**
+     * Gets the index of the frame that should be shown at the given clock tick.
+     *
+     * @param tick the clock tick
+     * @return the frame index
+     */
+    public int frameIndexAt(long tick) {
+        if (frames.length == 1) {
+            return 0;
+        }
+        return (int) Math.floorMod(tick / ticksPerFrame + offset, (long) frames.length);
+    }
+
+    /**
+     * Gets a frame by index.
+     *
+     * @param index the frame index
+     * @return the frame, or null if the frame is an empty slot
+     */
+    public ItemStack getFrame(int index) {
+        return frames[index];
+    }
+
+    /**
+     * Gets the number of frames in this animation.
+     *
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /**
+     * Gets how many ticks each frame is shown.
+     *
+     * @return the ticks per frame
+     */
+    public int getTicksPerFrame() {
+        return ticksPerFrame;
+    }
+}
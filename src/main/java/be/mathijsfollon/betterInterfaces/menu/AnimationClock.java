@@ -0,0 +1,131 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared tick clock driving all menu animations of a plugin.
+ * A single repeating task ticks every subscribed menu, instead of every menu scheduling its own task.
+ * The task is only running while at least one visible menu has animations, and is stopped as soon
+ * as the last menu unsubscribes, so closed menus can never keep a task alive.
+ *
+ * On a regionized server the players' menus are ticked by different threads, so every player gets their own
+ * clock, running on the player's region thread. A player's clock is dropped when it stops.
+ *
+ * Subscriptions and ticks happen on the thread owning the player, see {@link MenuScheduler}.
+ */
+final class AnimationClock {
+    private static final Map<Key, AnimationClock> CLOCKS = new ConcurrentHashMap<>();
+
+    private final Key key;
+    private final MenuScheduler scheduler;
+    private final Set<AbstractMenu> menus;
+    private MenuScheduler.Task task;
+    private long tick;
+
+    private AnimationClock(Key key) {
+        this.key = key;
+        this.scheduler = MenuScheduler.of(key.plugin());
+        this.menus = new LinkedHashSet<>();
+    }
+
+    /**
+     * Gets the clock ticking the menus of a player: the shared clock of the plugin, or the player's own clock
+     * on a regionized server.
+     *
+     * @param plugin the plugin owning the menus
+     * @param player the player viewing the menus
+     * @return the clock
+     */
+    static AnimationClock of(Plugin plugin, Player player) {
+        return CLOCKS.computeIfAbsent(keyOf(plugin, player), AnimationClock::new);
+    }
+
+    /**
+     * Gets the current tick of the clock ticking the menus of a player, without creating the clock.
+     *
+     * @param plugin the plugin owning the menus
+     * @param player the player viewing the menus
+     * @return the tick, or 0 if the clock does not exist
+     */
+    static long tickOf(Plugin plugin, Player player) {
+        AnimationClock clock = CLOCKS.get(keyOf(plugin, player));
+        return clock != null ? clock.tick : 0L;
+    }
+
+    private static Key keyOf(Plugin plugin, Player player) {
+        return new Key(plugin, MenuScheduler.of(plugin).isRegionized() ? player.getUniqueId() : null);
+    }
+
+    /**
+     * Subscribes a menu so its animations are advanced every tick.
+     *
+     * @param menu the menu
+     */
+    void subscribe(AbstractMenu menu) {
+        menus.add(menu);
+        // Tasks are cancelled by the server when the plugin is disabled, so restart if needed
+        if (task == null || task.isCancelled()) {
+            task = scheduler.runTimer(menu.getPlayer(), this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Unsubscribes a menu, stopping the clock if no menus are left.
+     *
+     * @param menu the menu
+     */
+    void unsubscribe(AbstractMenu menu) {
+        menus.remove(menu);
+        if (menus.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * Gets the current clock tick.
+     *
+     * @return the tick
+     */
+    long getTick() {
+        return tick;
+    }
+
+    private void tick() {
+        tick++;
+        Iterator<AbstractMenu> iterator = menus.iterator();
+        while (iterator.hasNext()) {
+            // Menus that are no longer open drop out of the clock on their own
+            if (!iterator.next().tickAnimations(tick)) {
+                iterator.remove();
+            }
+        }
+        if (menus.isEmpty()) {
+            stop();
+        }
+    }
+
+    private void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (key.player() != null) {
+            CLOCKS.remove(key, this);
+        }
+    }
+
+    /**
+     * Identifies a clock: per plugin, and per player on a regionized server.
+     */
+    private record Key(Plugin plugin, UUID player) {
+    }
+}
@@ -0,0 +1,304 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import be.mathijsfollon.betterInterfaces.api.MenuClickThrottle;
+import be.mathijsfollon.betterInterfaces.api.util.Builder;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Click admission layer in front of menu click handling.
+ * Every click must pass a token bucket per player, a token bucket per (player, menu) and a
+ * per-slot debounce window before a {@link be.mathijsfollon.betterInterfaces.events.MenuClickEvent} is built.
+ * Rejected clicks are simply cancelled and never reach handlers.
+ *
+ * Counters for admitted and rejected clicks are kept for monitoring.
+ */
+public class ClickThrottle implements MenuClickThrottle {
+    private static final long IDLE_TIMEOUT_NANOS = 60_000_000_000L;
+    private static final int PRUNE_INTERVAL = 4096;
+
+    private final Map<UUID, PlayerState> players;
+    private final LongAdder[] counters;
+    private final AtomicInteger admissions;
+    private volatile Settings settings;
+
+    /**
+     * Creates a new ClickThrottle.
+     *
+     * @param settings the throttle settings
+     */
+    public ClickThrottle(Settings settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException("Settings cannot be null");
+        }
+        this.players = new ConcurrentHashMap<>();
+        this.counters = new LongAdder[Verdict.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        this.admissions = new AtomicInteger();
+        this.settings = settings;
+    }
+
+    /**
+     * Checks whether a click may be processed.
+     *
+     * @param playerId the player who clicked
+     * @param menuId   the id of the menu that was clicked (can be null)
+     * @param slot     the clicked slot
+     * @return the verdict
+     */
+    @Override
+    public Verdict admit(UUID playerId, String menuId, int slot) {
+        Settings current = settings;
+        if (!current.enabled()) {
+            return Verdict.ADMITTED;
+        }
+
+        long now = System.nanoTime();
+        PlayerState state = players.computeIfAbsent(playerId, id -> new PlayerState(current, now));
+        state.lastSeen = now;
+        MenuState menuState = state.menus.computeIfAbsent(menuId != null ? menuId : "", id -> new MenuState(current, now));
+
+        Verdict verdict;
+        if (current.slotDebounceNanos() > 0 && slot >= 0 && slot < menuState.lastSlotClick.length
+                && menuState.lastSlotClick[slot] != 0 && now - menuState.lastSlotClick[slot] < current.slotDebounceNanos()) {
+            verdict = Verdict.DEBOUNCED;
+        } else if (!state.bucket.tryAcquire(current.playerCapacity(), current.playerRefillPerSecond(), now)) {
+            verdict = Verdict.PLAYER_RATE_LIMITED;
+        } else if (!menuState.bucket.tryAcquire(current.menuCapacity(), current.menuRefillPerSecond(), now)) {
+            verdict = Verdict.MENU_RATE_LIMITED;
+        } else {
+            verdict = Verdict.ADMITTED;
+            if (slot >= 0 && slot < menuState.lastSlotClick.length) {
+                menuState.lastSlotClick[slot] = now;
+            }
+        }
+
+        counters[verdict.ordinal()].increment();
+        if (admissions.incrementAndGet() % PRUNE_INTERVAL == 0) {
+            prune(now);
+        }
+        return verdict;
+    }
+
+    /**
+     * Forgets all state kept for a player, e.g. when they leave the server.
+     *
+     * @param playerId the player
+     */
+    @Override
+    public void forget(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    /**
+     * Gets the number of clicks that received the given verdict.
+     *
+     * @param verdict the verdict
+     * @return the count
+     */
+    @Override
+    public long getCount(Verdict verdict) {
+        return counters[verdict.ordinal()].sum();
+    }
+
+    /**
+     * Gets a snapshot of all counters.
+     *
+     * @return the count per verdict
+     */
+    @Override
+    public Map<Verdict, Long> getCounters() {
+        Map<Verdict, Long> snapshot = new EnumMap<>(Verdict.class);
+        for (Verdict verdict : Verdict.values()) {
+            snapshot.put(verdict, getCount(verdict));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the current settings.
+     *
+     * @return the settings
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Replaces the settings. Existing buckets pick up the new limits on their next click.
+     *
+     * @param settings the new settings
+     */
+    public void setSettings(Settings settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException("Settings cannot be null");
+        }
+        this.settings = settings;
+    }
+
+    /**
+     * Drops state of players that have not clicked for a while.
+     */
+    private void prune(long now) {
+        Iterator<PlayerState> iterator = players.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastSeen > IDLE_TIMEOUT_NANOS) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Throttle state for a single player.
+     */
+    private static final class PlayerState {
+        private final TokenBucket bucket;
+        private final Map<String, MenuState> menus;
+        private volatile long lastSeen;
+
+        private PlayerState(Settings settings, long now) {
+            this.bucket = new TokenBucket(settings.playerCapacity(), now);
+            this.menus = new ConcurrentHashMap<>();
+            this.lastSeen = now;
+        }
+    }
+
+    /**
+     * Throttle state for a single player in a single menu.
+     */
+    private static final class MenuState {
+        private final TokenBucket bucket;
+        private final long[] lastSlotClick;
+
+        private MenuState(Settings settings, long now) {
+            this.bucket = new TokenBucket(settings.menuCapacity(), now);
+            this.lastSlotClick = new long[54];
+        }
+    }
+
+    /**
+     * Classic token bucket, refilled lazily based on elapsed time.
+     */
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        private synchronized boolean tryAcquire(int capacity, double refillPerSecond, long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * refillPerSecond / 1_000_000_000d);
+                lastRefill = now;
+            }
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * Immutable throttle settings.
+     *
+     * @param enabled              whether clicks are throttled at all
+     * @param playerCapacity       burst size of the per-player bucket
+     * @param playerRefillPerSecond clicks per second refilled into the per-player bucket
+     * @param menuCapacity         burst size of the per-menu bucket
+     * @param menuRefillPerSecond  clicks per second refilled into the per-menu bucket
+     * @param slotDebounceNanos    minimum time between two admitted clicks on the same slot
+     */
+    public record Settings(
+            boolean enabled,
+            int playerCapacity,
+            double playerRefillPerSecond,
+            int menuCapacity,
+            double menuRefillPerSecond,
+            long slotDebounceNanos
+    ) {
+        public Settings {
+            if (playerCapacity < 1 || menuCapacity < 1) {
+                throw new IllegalArgumentException("Bucket capacity must be at least 1");
+            }
+            if (playerRefillPerSecond <= 0 || menuRefillPerSecond <= 0) {
+                throw new IllegalArgumentException("Refill rate must be positive");
+            }
+            if (slotDebounceNanos < 0) {
+                throw new IllegalArgumentException("Debounce window cannot be negative");
+            }
+        }
+
+        /**
+         * Gets the default settings, generous enough to never affect normal players.
+         *
+         * @return the default settings
+         */
+        public static Settings defaults() {
+            return builder().build();
+        }
+
+        /**
+         * Creates a new settings builder, initialized with the defaults.
+         *
+         * @return the builder
+         */
+        public static SettingsBuilder builder() {
+            return new SettingsBuilder();
+        }
+    }
+
+    /**
+     * Builder for {@link Settings}.
+     */
+    public static final class SettingsBuilder implements Builder<Settings> {
+        private boolean enabled = true;
+        private int playerCapacity = 20;
+        private double playerRefillPerSecond = 10;
+        private int menuCapacity = 12;
+        private double menuRefillPerSecond = 8;
+        private long slotDebounceMillis = 50;
+
+        private SettingsBuilder() {
+        }
+
+        public SettingsBuilder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public SettingsBuilder playerLimit(int capacity, double refillPerSecond) {
+            this.playerCapacity = capacity;
+            this.playerRefillPerSecond = refillPerSecond;
+            return this;
+        }
+
+        public SettingsBuilder menuLimit(int capacity, double refillPerSecond) {
+            this.menuCapacity = capacity;
+            this.menuRefillPerSecond = refillPerSecond;
+            return this;
+        }
+
+        public SettingsBuilder slotDebounceMillis(long slotDebounceMillis) {
+            this.slotDebounceMillis = slotDebounceMillis;
+            return this;
+        }
+
+        @Override
+        public Settings build() {
+            return new Settings(enabled, playerCapacity, playerRefillPerSecond,
+                    menuCapacity, menuRefillPerSecond, slotDebounceMillis * 1_000_000L);
+        }
+    }
+}
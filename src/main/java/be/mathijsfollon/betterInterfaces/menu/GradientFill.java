@@ -0,0 +1,149 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed fill plans for a gradient of glass panes.
+ *
+ * A gradient colors the rows that still have free slots from top to bottom, so the color of every row depends
+ * only on the number of rows and on which of them have free slots. All of these plans are computed when the
+ * gradient is created; filling a menu is then a table lookup plus slot writes.
+ *
+ * The filler stacks are shared by every menu using the gradient and must not be modified or shown directly.
+ * Every menu fills with its own copies of them, so handlers changing a filler item only affect that menu.
+ */
+final class GradientFill {
+    private static final int MAX_ROWS = 6;
+
+    // Common glass pane colors for gradients
+    private static final Material[] PALETTE = {
+        Material.WHITE_STAINED_GLASS_PANE,
+        Material.LIGHT_GRAY_STAINED_GLASS_PANE,
+        Material.GRAY_STAINED_GLASS_PANE,
+        Material.BLACK_STAINED_GLASS_PANE,
+        Material.BROWN_STAINED_GLASS_PANE,
+        Material.RED_STAINED_GLASS_PANE,
+        Material.ORANGE_STAINED_GLASS_PANE,
+        Material.YELLOW_STAINED_GLASS_PANE,
+        Material.LIME_STAINED_GLASS_PANE,
+        Material.GREEN_STAINED_GLASS_PANE,
+        Material.CYAN_STAINED_GLASS_PANE,
+        Material.LIGHT_BLUE_STAINED_GLASS_PANE,
+        Material.BLUE_STAINED_GLASS_PANE,
+        Material.PURPLE_STAINED_GLASS_PANE,
+        Material.MAGENTA_STAINED_GLASS_PANE,
+        Material.PINK_STAINED_GLASS_PANE
+    };
+
+    private static final AtomicReferenceArray<GradientFill> RANGES =
+            new AtomicReferenceArray<>(PALETTE.length * PALETTE.length);
+    private static final Map<Material, GradientFill> SOLIDS = new ConcurrentHashMap<>();
+
+    // plans[rows - 1][mask of rows with free slots][row] is the stack of that row, or null if the row is full
+    private final ItemStack[][][] plans;
+
+    /**
+     * Creates a gradient over the given colors, from top to bottom.
+     *
+     * @param colors the colors of the gradient
+     */
+    GradientFill(Material... colors) {
+        if (colors.length == 0) {
+            throw new IllegalArgumentException("A gradient needs at least one color");
+        }
+        ItemStack[] stacks = new ItemStack[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            stacks[i] = new ItemStack(colors[i]);
+            stacks[i].editMeta(meta -> meta.displayName(Component.empty()));
+        }
+
+        this.plans = new ItemStack[MAX_ROWS][][];
+        for (int rows = 1; rows <= MAX_ROWS; rows++) {
+            ItemStack[][] byMask = new ItemStack[1 << rows][];
+            for (int mask = 1; mask < byMask.length; mask++) {
+                ItemStack[] plan = new ItemStack[rows];
+                int filledRows = Integer.bitCount(mask);
+                int rowIndex = 0;
+                for (int row = 0; row < rows; row++) {
+                    if ((mask & (1 << row)) == 0) {
+                        continue;
+                    }
+                    int colorIndex = filledRows == 1 ? 0 : (rowIndex * (stacks.length - 1)) / (filledRows - 1);
+                    plan[row] = stacks[Math.min(colorIndex, stacks.length - 1)];
+                    rowIndex++;
+                }
+                byMask[mask] = plan;
+            }
+            plans[rows - 1] = byMask;
+        }
+    }
+
+    /**
+     * Gets the gradient between two palette colors.
+     * Unknown colors fall back to the first and last palette color; the range is ordered from the lower to the
+     * higher palette index.
+     *
+     * @param start the start color
+     * @param end   the end color
+     * @return the cached gradient
+     */
+    static GradientFill between(Material start, Material end) {
+        int startIndex = indexOf(start);
+        int endIndex = indexOf(end);
+
+        if (startIndex == -1) startIndex = 0;
+        if (endIndex == -1) endIndex = PALETTE.length - 1;
+
+        if (startIndex > endIndex) {
+            int temp = startIndex;
+            startIndex = endIndex;
+            endIndex = temp;
+        }
+
+        int key = startIndex * PALETTE.length + endIndex;
+        GradientFill fill = RANGES.get(key);
+        if (fill == null) {
+            Material[] colors = new Material[endIndex - startIndex + 1];
+            System.arraycopy(PALETTE, startIndex, colors, 0, colors.length);
+            RANGES.compareAndSet(key, null, new GradientFill(colors));
+            fill = RANGES.get(key);
+        }
+        return fill;
+    }
+
+    /**
+     * Gets a fill of a single material.
+     *
+     * @param material the material to fill with
+     * @return the cached fill
+     */
+    static GradientFill solid(Material material) {
+        return SOLIDS.computeIfAbsent(material, GradientFill::new);
+    }
+
+    /**
+     * Gets the filler stack of every row.
+     *
+     * @param rows     the number of rows being filled
+     * @param freeRows bitmask of the rows that have free slots
+     * @return the stack of every row, null for full rows; shared, must not be modified
+     */
+    ItemStack[] plan(int rows, int freeRows) {
+        return plans[rows - 1][freeRows];
+    }
+
+    private static int indexOf(Material material) {
+        for (int i = 0; i < PALETTE.length; i++) {
+            if (PALETTE[i] == material) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
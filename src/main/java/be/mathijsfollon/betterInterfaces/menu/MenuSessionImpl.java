@@ -2,22 +2,31 @@ package be.mathijsfollon.betterInterfaces.menu;
 
 import be.mathijsfollon.betterInterfaces.api.Menu;
 import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuService;
 import be.mathijsfollon.betterInterfaces.api.MenuSession;
 import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
 import be.mathijsfollon.betterInterfaces.events.MenuCloseEvent;
+import be.mathijsfollon.betterInterfaces.events.MenuEventPool;
 import be.mathijsfollon.betterInterfaces.events.MenuOpenEvent;
+import be.mathijsfollon.betterInterfaces.jfr.MenuCloseJfrEvent;
+import be.mathijsfollon.betterInterfaces.jfr.MenuOpenJfrEvent;
+import be.mathijsfollon.betterInterfaces.menu.shared.SharedMenu;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 import org.bukkit.entity.Player;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class MenuSessionImpl implements MenuSession {
-    private final Menu menu;
+    private Menu menu;
     private final CompletableFuture<MenuOpenEvent> result;
     private final Player player;
     private final MenuOpenContextStore context;
     private final MenuEventManager eventManager;
     private MenuSession previousSession; // Navigation stack
+    private String menuId;
+    private long definitionVersion;
+    private Migrator migrator;
 
 
     public MenuSessionImpl(Menu menu, CompletableFuture<MenuOpenEvent> result, Player player, MenuOpenContextStore context, MenuEventManager eventManager) {
@@ -43,6 +52,43 @@ public class MenuSessionImpl implements MenuSession {
         this.previousSession = previousSession;
     }
 
+    /**
+     * Pins the definition version this session's menu was built from.
+     * When the session is opened again after its definition was reloaded, the migrator rebuilds the menu.
+     *
+     * @param menuId            the id of the menu definition
+     * @param definitionVersion the store version of the definition the menu was built from
+     * @param migrator          rebuilds the menu if the definition changed
+     */
+    public void pinDefinition(String menuId, long definitionVersion, Migrator migrator) {
+        this.menuId = menuId;
+        this.definitionVersion = definitionVersion;
+        this.migrator = migrator;
+    }
+
+    /**
+     * Gets the id of the menu definition this session was opened from.
+     *
+     * @return the menu id, or null if the session is not pinned to a definition
+     */
+    public String getMenuId() {
+        return menuId;
+    }
+
+    /**
+     * Gets the definition version this session's menu was built from.
+     *
+     * @return the pinned version
+     */
+    public long getDefinitionVersion() {
+        return definitionVersion;
+    }
+
+    @Override
+    public MenuOpenContextStore getContext() {
+        return context;
+    }
+
     @Override
     public boolean isOpen() {
         return menu.isOpen();
@@ -52,9 +98,27 @@ public class MenuSessionImpl implements MenuSession {
     public void open() {
         if (isOpen()) return;
 
+        // Rebuild the menu if its definition was reloaded while the session was not showing
+        CompletableFuture<MenuOpenEvent> migratedResult = null;
+        if (migrator != null) {
+            CompletableFuture<MenuOpenEvent> pending = new CompletableFuture<>();
+            Menu migrated = migrator.migrate(this, pending);
+            if (migrated != null) {
+                menu = migrated;
+                migratedResult = pending;
+            }
+        }
+
+        MenuOpenJfrEvent recording = new MenuOpenJfrEvent();
+        recording.begin();
+        MenuTracer tracer = tracer();
+        long traceStart = tracer != null ? tracer.start() : 0L;
+
         // Set session and context on menu if it's an AbstractMenu
         if (menu instanceof AbstractMenu abstractMenu) {
             abstractMenu.setSessionAndContext(this, context);
+        } else if (menu instanceof SharedMenu.View view) {
+            view.setSessionAndContext(this, context);
         }
 
         // Fire menu open event
@@ -63,6 +127,7 @@ public class MenuSessionImpl implements MenuSession {
 
         // If event is cancelled, don't open the menu
         if (openEvent.isCancelled()) {
+            commit(recording, true);
             return;
         }
 
@@ -70,6 +135,31 @@ public class MenuSessionImpl implements MenuSession {
         
         // Complete the result future with the open event
         result.complete(openEvent);
+        if (migratedResult != null) {
+            migratedResult.complete(openEvent);
+        }
+        commit(recording, false);
+        if (tracer != null) {
+            tracer.record(context, "open", traceStart);
+        }
+    }
+
+    /**
+     * Gets the tracer of the menu service that opened this session.
+     *
+     * @return the tracer, or null if the context has no menu service
+     */
+    private MenuTracer tracer() {
+        return context.get("menu-service", MenuService.class).map(MenuService::getTracer).orElse(null);
+    }
+
+    private void commit(MenuOpenJfrEvent recording, boolean cancelled) {
+        recording.end();
+        if (recording.shouldCommit()) {
+            recording.describe(context, player);
+            recording.cancelled = cancelled;
+            recording.commit();
+        }
     }
 
     @Override
@@ -79,17 +169,28 @@ public class MenuSessionImpl implements MenuSession {
 
     @Override
     public void close(boolean silently) {
+        MenuCloseJfrEvent recording = new MenuCloseJfrEvent();
+        recording.begin();
+
         // Fire menu close event first
-        MenuCloseEvent closeEvent = new MenuCloseEvent(player, menu, this, context, silently);
+        MenuCloseEvent closeEvent = MenuEventPool.of(eventManager).acquireCloseEvent(player, menu, this, context, silently);
         eventManager.fireEvent(closeEvent);
+        boolean cancelled = closeEvent.isCancelled();
+        MenuEventPool.of(eventManager).release(closeEvent);
 
         // If event is cancelled, don't close the menu
-        if (closeEvent.isCancelled()) {
-            return;
+        if (!cancelled) {
+            // Close the menu (use silently=true for programmatic closes to bypass uncloseable check)
+            menu.close(silently);
         }
 
-        // Close the menu (use silently=true for programmatic closes to bypass uncloseable check)
-        menu.close(silently);
+        recording.end();
+        if (recording.shouldCommit()) {
+            recording.describe(context, player);
+            recording.silent = silently;
+            recording.cancelled = cancelled;
+            recording.commit();
+        }
     }
 
 
@@ -114,6 +215,13 @@ public class MenuSessionImpl implements MenuSession {
             return false;
         }
 
+        // Keep the flow in one trace, even if the previous session was opened outside of it
+        String traceId = MenuTracer.traceId(context);
+        MenuOpenContextStore previousContext = previousSession.getContext();
+        if (traceId != null && previousContext != null) {
+            previousContext.put(MenuTracer.TRACE_ID_KEY, traceId);
+        }
+
         // Close current menu silently
         close(true);
 
@@ -122,4 +230,19 @@ public class MenuSessionImpl implements MenuSession {
 
         return true;
     }
+
+    /**
+     * Rebuilds the menu of a session from its current definition.
+     */
+    @FunctionalInterface
+    public interface Migrator {
+        /**
+         * Rebuilds the menu of a session if its definition changed.
+         *
+         * @param session the session about to be opened
+         * @param result  the result to create the new menu with, completed when the rebuilt menu opens
+         * @return the new menu, or null to keep the current one
+         */
+        Menu migrate(MenuSessionImpl session, CompletableFuture<MenuOpenEvent> result);
+    }
 }
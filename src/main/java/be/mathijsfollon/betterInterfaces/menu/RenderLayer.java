@@ -0,0 +1,17 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+/**
+ * Layers a menu is composed of, from bottom to top.
+ * A slot shows the item of the highest layer that has one, so the order in which layers are filled does not
+ * matter: a fill added after a button never covers it.
+ */
+public enum RenderLayer {
+    /** Decorative fills, e.g. {@link AbstractMenu#fillGradient}. */
+    BACKGROUND,
+    /** The menu content; {@link AbstractMenu#addItem(be.mathijsfollon.betterInterfaces.api.MenuItem)} adds here. */
+    CONTENT,
+    /** Buttons such as close, back and page navigation. */
+    CONTROLS,
+    /** Temporary items shown over everything else, e.g. a confirmation or error indicator. */
+    OVERLAY
+}
@@ -0,0 +1,106 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces slot restorations after menu clicks into a single flush per tick.
+ * Restore requests are deduplicated per (player, slot): clicking the same slot many times in one tick
+ * results in one write, and every player gets at most one inventory update per tick,
+ * no matter how many clicks came in. Only one task is scheduled per tick for all players.
+ *
+ * On a regionized server every player gets their own queue, flushed on the player's region thread.
+ * A player's queue is dropped once it is flushed empty.
+ *
+ * Requests and flushes happen on the thread owning the player, see {@link MenuScheduler}.
+ */
+final class SlotRestoreQueue {
+    private static final Map<Key, SlotRestoreQueue> QUEUES = new ConcurrentHashMap<>();
+
+    private final Key key;
+    private final MenuScheduler scheduler;
+    private Map<UUID, PendingRestore> pending;
+    private boolean scheduled;
+
+    private SlotRestoreQueue(Key key) {
+        this.key = key;
+        this.scheduler = MenuScheduler.of(key.plugin());
+        this.pending = new LinkedHashMap<>();
+    }
+
+    /**
+     * Gets the restore queue for the menus of a player: the shared queue of the plugin, or the player's own
+     * queue on a regionized server.
+     *
+     * @param plugin the plugin owning the menus
+     * @param player the player viewing the menus
+     * @return the queue
+     */
+    static SlotRestoreQueue of(Plugin plugin, Player player) {
+        UUID owner = MenuScheduler.of(plugin).isRegionized() ? player.getUniqueId() : null;
+        return QUEUES.computeIfAbsent(new Key(plugin, owner), SlotRestoreQueue::new);
+    }
+
+    /**
+     * Requests that a slot of a menu is restored to its menu item at the end of this tick.
+     *
+     * @param menu the menu
+     * @param slot the slot to restore
+     */
+    void request(AbstractMenu menu, int slot) {
+        UUID playerId = menu.getPlayer().getUniqueId();
+        PendingRestore restore = pending.get(playerId);
+
+        // A player can only look at one menu at a time, restores for an older menu are obsolete
+        if (restore == null || restore.menu != menu) {
+            restore = new PendingRestore(menu);
+            pending.put(playerId, restore);
+        }
+        restore.slots |= 1L << slot;
+
+        if (!scheduled) {
+            scheduled = true;
+            scheduler.run(menu.getPlayer(), this::flush);
+        }
+    }
+
+    private void flush() {
+        scheduled = false;
+
+        // Swap the map so restores requested while flushing go to the next tick
+        Map<UUID, PendingRestore> batch = pending;
+        pending = new LinkedHashMap<>();
+
+        for (PendingRestore restore : batch.values()) {
+            restore.menu.restoreSlots(restore.slots);
+        }
+
+        if (key.player() != null && pending.isEmpty()) {
+            QUEUES.remove(key, this);
+        }
+    }
+
+    /**
+     * Identifies a queue: per plugin, and per player on a regionized server.
+     */
+    private record Key(Plugin plugin, UUID player) {
+    }
+
+    /**
+     * Restores pending for a single player, as a bitmask of slots (inventories have at most 54 slots).
+     */
+    private static final class PendingRestore {
+        private final AbstractMenu menu;
+        private long slots;
+
+        private PendingRestore(AbstractMenu menu) {
+            this.menu = menu;
+        }
+    }
+}
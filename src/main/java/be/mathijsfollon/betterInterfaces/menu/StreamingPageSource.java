@@ -0,0 +1,155 @@
+package be.mathijsfollon.betterInterfaces.menu;
+
+import be.mathijsfollon.betterInterfaces.api.PageSource;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Page source that is filled while a menu already shows it.
+ * Expensive queries (searches, leaderboards, ...) append their results as they are produced, usually from an
+ * async task, and call {@link #complete()} when done. A pageable menu renders the first page as soon as it has
+ * enough entries, and enables its next button once the next page is full.
+ *
+ * Entries can be appended from any thread. Rendering happens on the main thread, through the renderer.
+ *
+ * @param <T> the entry type
+ */
+public class StreamingPageSource<T> implements PageSource {
+    private final Function<T, ItemStack> renderer;
+    private final List<Runnable> listeners;
+    private final Object lock;
+    private volatile Object[] entries;
+    private volatile int size;
+    private volatile boolean complete;
+
+    /**
+     * Creates a new streaming page source.
+     *
+     * @param renderer creates the item stack of an entry
+     */
+    public StreamingPageSource(Function<T, ItemStack> renderer) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("Renderer cannot be null");
+        }
+        this.renderer = renderer;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.lock = new Object();
+        this.entries = new Object[64];
+    }
+
+    /**
+     * Appends an entry.
+     *
+     * @param entry the entry
+     * @throws IllegalStateException if the source is already complete
+     */
+    public void append(T entry) {
+        appendAll(List.of(entry));
+    }
+
+    /**
+     * Appends entries. Listeners are notified once for the whole batch.
+     *
+     * @param batch the entries, in display order
+     * @throws IllegalStateException if the source is already complete
+     */
+    public void appendAll(Collection<? extends T> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Entries cannot be null");
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (complete) {
+                throw new IllegalStateException("Cannot append to a completed page source");
+            }
+            Object[] current = entries;
+            int newSize = size + batch.size();
+            if (newSize > current.length) {
+                current = Arrays.copyOf(current, Math.max(newSize, current.length * 2));
+            }
+            int index = size;
+            for (T entry : batch) {
+                current[index++] = entry;
+            }
+            // Publish the array before the size, so readers never see a size larger than the array they read
+            entries = current;
+            size = newSize;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Marks the source as complete. No entries can be appended afterwards.
+     * Calling this more than once has no effect.
+     */
+    public void complete() {
+        synchronized (lock) {
+            if (complete) {
+                return;
+            }
+            complete = true;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Gets an entry.
+     *
+     * @param index the entry index (less than {@link #size()})
+     * @return the entry
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return (T) entries[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ItemStack render(int index) {
+        return renderer.apply(get(index));
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                System.err.println("Error notifying page source listener: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
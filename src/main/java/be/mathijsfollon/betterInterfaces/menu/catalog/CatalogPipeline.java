@@ -0,0 +1,253 @@
+package be.mathijsfollon.betterInterfaces.menu.catalog;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Filter → sort → paginate pipeline for catalog-backed pageable menus.
+ *
+ * Sorting the whole catalog by a key is done once per (catalog version, sort key), with a fork-join
+ * parallel sort for large catalogs, and the resulting permutation is cached. Every later query reuses it:
+ * <ul>
+ *     <li>unfiltered queries are a view over the cached permutation (O(1), paging is O(page))</li>
+ *     <li>switching between ascending and descending reads the same ids backwards (O(1))</li>
+ *     <li>filtered queries order the filter ids by their position in the permutation,
+ *     in O(k log k) for small filters or one O(n) pass for large ones</li>
+ * </ul>
+ * The last filtered result is cached as well, so paging and flipping the sort direction of a filtered
+ * query do not repeat any work.
+ *
+ * The pipeline is thread-safe and can be shared by all menus showing the same catalogs.
+ */
+public class CatalogPipeline {
+    private static final int MAX_CACHED_ORDERINGS = 16;
+
+    /**
+     * Order in which catalog entries can be sorted.
+     */
+    public enum SortKey {
+        /** The order the entries were added to the catalog. */
+        CATALOG,
+        PRICE,
+        /** Display name without color codes, ignoring case. */
+        NAME,
+        RARITY
+    }
+
+    private final Map<OrderingKey, Ordering> orderings;
+    private volatile FilteredResult lastFiltered;
+
+    public CatalogPipeline() {
+        // Access-ordered, so the least recently used orderings are evicted first
+        this.orderings = new LinkedHashMap<>(MAX_CACHED_ORDERINGS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<OrderingKey, Ordering> eldest) {
+                return size() > MAX_CACHED_ORDERINGS;
+            }
+        };
+    }
+
+    /**
+     * Sorts all entries of a catalog.
+     *
+     * @param catalog    the catalog
+     * @param key        the sort key
+     * @param descending true to sort from high to low
+     * @return a view of all entries in sorted order
+     */
+    public CatalogView query(ItemCatalog catalog, SortKey key, boolean descending) {
+        CatalogView view = new CatalogView(catalog, ordering(catalog, key).permutation());
+        return descending ? view.reversed() : view;
+    }
+
+    /**
+     * Sorts the entries of a search result.
+     *
+     * @param result     the search result to sort
+     * @param key        the sort key
+     * @param descending true to sort from high to low
+     * @return a view of the matching entries in sorted order
+     */
+    public CatalogView query(CatalogSearchIndex.SearchResult result, SortKey key, boolean descending) {
+        return query(result.getCatalog(), result.getIds(), key, descending);
+    }
+
+    /**
+     * Filters and sorts entries of a catalog.
+     *
+     * @param catalog    the catalog
+     * @param filter     the ids of the entries to show, or null to show all entries. The array is used as
+     *                   the cache key of the result and must not be modified afterwards.
+     * @param key        the sort key
+     * @param descending true to sort from high to low
+     * @return a view of the filtered entries in sorted order
+     */
+    public CatalogView query(ItemCatalog catalog, int[] filter, SortKey key, boolean descending) {
+        if (filter == null) {
+            return query(catalog, key, descending);
+        }
+
+        FilteredResult cached = lastFiltered;
+        int[] ids;
+        if (cached != null && cached.version() == catalog.version() && cached.filter() == filter && cached.key() == key) {
+            ids = cached.ids();
+        } else {
+            ids = sortFiltered(ordering(catalog, key), filter);
+            lastFiltered = new FilteredResult(catalog.version(), filter, key, ids);
+        }
+
+        CatalogView view = new CatalogView(catalog, ids);
+        return descending ? view.reversed() : view;
+    }
+
+    /**
+     * Gets the cached ordering of a catalog by a key, sorting the catalog if needed.
+     */
+    private Ordering ordering(ItemCatalog catalog, SortKey key) {
+        OrderingKey cacheKey = new OrderingKey(catalog.version(), key);
+        synchronized (orderings) {
+            Ordering ordering = orderings.get(cacheKey);
+            if (ordering != null) {
+                return ordering;
+            }
+        }
+
+        // Sort outside the lock; two threads racing on the same key compute identical orderings
+        Ordering ordering = sort(catalog, key);
+        synchronized (orderings) {
+            orderings.putIfAbsent(cacheKey, ordering);
+        }
+        return ordering;
+    }
+
+    private static int[] sortFiltered(Ordering ordering, int[] filter) {
+        int[] permutation = ordering.permutation();
+        int[] ids = new int[filter.length];
+
+        // Small filters: sort their positions in the permutation; large filters: one pass over the permutation
+        if ((long) filter.length * (32 - Integer.numberOfLeadingZeros(filter.length)) < permutation.length) {
+            int[] positions = ordering.positions();
+            for (int i = 0; i < filter.length; i++) {
+                ids[i] = positions[filter[i]];
+            }
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = permutation[ids[i]];
+            }
+            return ids;
+        }
+
+        boolean[] included = new boolean[permutation.length];
+        for (int id : filter) {
+            included[id] = true;
+        }
+        int size = 0;
+        for (int id : permutation) {
+            if (included[id]) {
+                ids[size++] = id;
+            }
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Sorts all entries of a catalog by a key.
+     * Every entry gets an int rank for the key, the rank and id are packed into one long, and the packed values
+     * are sorted with {@link Arrays#parallelSort(long[])}, which uses the fork-join pool for large arrays.
+     * Equal ranks keep catalog order, because the id is in the low bits.
+     */
+    private static Ordering sort(ItemCatalog catalog, SortKey key) {
+        int size = catalog.size();
+        int[] ranks = ranks(catalog, key);
+
+        long[] packed = new long[size];
+        for (int id = 0; id < size; id++) {
+            packed[id] = ((long) ranks[id] << 32) | id;
+        }
+        Arrays.parallelSort(packed);
+
+        int[] permutation = new int[size];
+        int[] positions = new int[size];
+        for (int position = 0; position < size; position++) {
+            int id = (int) packed[position];
+            permutation[position] = id;
+            positions[id] = position;
+        }
+        return new Ordering(permutation, positions);
+    }
+
+    /**
+     * Computes the non-negative sort rank of every entry for a key.
+     */
+    private static int[] ranks(ItemCatalog catalog, SortKey key) {
+        int size = catalog.size();
+        int[] ranks = new int[size];
+        switch (key) {
+            case CATALOG -> {
+                // All ranks equal, so entries stay in catalog order
+            }
+            case RARITY -> {
+                for (int id = 0; id < size; id++) {
+                    ranks[id] = catalog.getRarity(id);
+                }
+            }
+            case PRICE -> {
+                // Prices are longs, so rank them by their position among the distinct prices
+                long[] distinct = new long[size];
+                for (int id = 0; id < size; id++) {
+                    distinct[id] = catalog.getPrice(id);
+                }
+                Arrays.parallelSort(distinct);
+                int count = 0;
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || distinct[i] != distinct[i - 1]) {
+                        distinct[count++] = distinct[i];
+                    }
+                }
+                for (int id = 0; id < size; id++) {
+                    ranks[id] = Arrays.binarySearch(distinct, 0, count, catalog.getPrice(id));
+                }
+            }
+            case NAME -> {
+                // Names are interned, so only the distinct names need to be sorted
+                int poolSize = catalog.namePoolSize();
+                String[] sortable = new String[poolSize];
+                Integer[] order = new Integer[poolSize];
+                for (int i = 0; i < poolSize; i++) {
+                    sortable[i] = CatalogSearchIndex.normalize(catalog.pooledName(i));
+                    order[i] = i;
+                }
+                Arrays.parallelSort(order, (a, b) -> sortable[a].compareTo(sortable[b]));
+                int[] nameRanks = new int[poolSize];
+                for (int rank = 0; rank < poolSize; rank++) {
+                    nameRanks[order[rank]] = rank + 1;
+                }
+                for (int id = 0; id < size; id++) {
+                    int name = catalog.nameIndex(id);
+                    // Entries without a name come first
+                    ranks[id] = name >= 0 ? nameRanks[name] : 0;
+                }
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Cache key of an ordering.
+     */
+    private record OrderingKey(long version, SortKey key) {}
+
+    /**
+     * A catalog sorted by one key.
+     *
+     * @param permutation the entry ids in sorted order
+     * @param positions   the position of every entry id in the permutation
+     */
+    private record Ordering(int[] permutation, int[] positions) {}
+
+    /**
+     * The most recent filtered result, reused while the same filter is paged or flipped.
+     */
+    private record FilteredResult(long version, int[] filter, SortKey key, int[] ids) {}
+}
@@ -0,0 +1,390 @@
+package be.mathijsfollon.betterInterfaces.menu.catalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prebuilt n-gram index for searching the names and tags of an {@link ItemCatalog}.
+ *
+ * A query matches an entry if its name (without color codes) or one of its tags contains the query,
+ * ignoring case. Entries sharing the same name and tags share one indexed text, so the index grows with the
+ * number of distinct texts rather than with the number of entries.
+ *
+ * Queries of three characters or more intersect the trigram posting lists of the query and only verify the
+ * remaining candidates. Two character queries are answered from the bigram postings directly.
+ * While a player keeps typing, {@link #refine(SearchResult, String)} narrows the previous result instead of
+ * searching the whole catalog again.
+ *
+ * The index is immutable and can be queried from any thread.
+ */
+public final class CatalogSearchIndex {
+    private static final int[] NONE = new int[0];
+
+    private final ItemCatalog catalog;
+    private final String[] texts;
+    private final int[][] textEntries;
+    private final Map<Long, int[]> bigrams;
+    private final Map<Long, int[]> trigrams;
+
+    private CatalogSearchIndex(ItemCatalog catalog, String[] texts, int[][] textEntries, Map<Long, int[]> bigrams, Map<Long, int[]> trigrams) {
+        this.catalog = catalog;
+        this.texts = texts;
+        this.textEntries = textEntries;
+        this.bigrams = bigrams;
+        this.trigrams = trigrams;
+    }
+
+    /**
+     * Builds the search index of a catalog.
+     *
+     * @param catalog the catalog
+     * @return the index
+     */
+    public static CatalogSearchIndex build(ItemCatalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+
+        // Entries with the same name and tags share one searchable text
+        Map<Long, Integer> textIds = new HashMap<>();
+        IntList[] entriesPerText = new IntList[16];
+        String[] texts = new String[16];
+        int textCount = 0;
+        for (int id = 0; id < catalog.size(); id++) {
+            long key = ((long) catalog.nameIndex(id) << 32) | (catalog.tagSetIndex(id) & 0xFFFFFFFFL);
+            Integer textId = textIds.get(key);
+            if (textId == null) {
+                textId = textCount++;
+                textIds.put(key, textId);
+                if (textId == texts.length) {
+                    texts = Arrays.copyOf(texts, textId * 2);
+                    entriesPerText = Arrays.copyOf(entriesPerText, textId * 2);
+                }
+                texts[textId] = searchableText(catalog, id);
+                entriesPerText[textId] = new IntList();
+            }
+            entriesPerText[textId].add(id);
+        }
+
+        int[][] textEntries = new int[textCount][];
+        Map<Long, IntList> bigramLists = new HashMap<>();
+        Map<Long, IntList> trigramLists = new HashMap<>();
+        for (int textId = 0; textId < textCount; textId++) {
+            textEntries[textId] = entriesPerText[textId].toArray();
+            String text = texts[textId];
+            for (int i = 0; i + 2 <= text.length(); i++) {
+                bigramLists.computeIfAbsent(gram(text, i, 2), k -> new IntList()).addUnique(textId);
+                if (i + 3 <= text.length()) {
+                    trigramLists.computeIfAbsent(gram(text, i, 3), k -> new IntList()).addUnique(textId);
+                }
+            }
+        }
+
+        return new CatalogSearchIndex(catalog, Arrays.copyOf(texts, textCount), textEntries, toPostings(bigramLists), toPostings(trigramLists));
+    }
+
+    /**
+     * Gets the catalog this index searches.
+     *
+     * @return the catalog
+     */
+    public ItemCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Searches the whole catalog.
+     *
+     * @param query the text to search for
+     * @return the matching entries, in catalog order
+     */
+    public SearchResult search(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            int[] all = new int[texts.length];
+            Arrays.setAll(all, i -> i);
+            return result(normalized, all);
+        }
+        if (normalized.length() == 1) {
+            return result(normalized, scan(normalized, null));
+        }
+        if (normalized.length() == 2) {
+            // Bigram postings are exact for two character queries
+            return result(normalized, bigrams.getOrDefault(gram(normalized, 0, 2), NONE));
+        }
+        return result(normalized, scan(normalized, candidates(normalized)));
+    }
+
+    /**
+     * Narrows a previous result to a longer query, e.g. after the player typed another character.
+     * Only the entries of the previous result are checked, unless the index finds fewer candidates.
+     * Falls back to a full search if the query does not extend the previous one.
+     *
+     * @param previous the previous result of this index (can be null)
+     * @param query    the new query
+     * @return the matching entries, in catalog order
+     */
+    public SearchResult refine(SearchResult previous, String query) {
+        String normalized = normalize(query);
+        if (previous == null || previous.index != this || !normalized.contains(previous.query)) {
+            return search(query);
+        }
+        if (normalized.equals(previous.query)) {
+            return previous;
+        }
+
+        int[] candidates = previous.textIds;
+        if (normalized.length() >= 3) {
+            int[] indexed = candidates(normalized);
+            if (indexed.length < candidates.length) {
+                candidates = indexed;
+            }
+        }
+        return result(normalized, scan(normalized, candidates));
+    }
+
+    /**
+     * Gets the texts that contain all trigrams of a query, starting from the shortest posting list.
+     */
+    private int[] candidates(String query) {
+        int gramCount = query.length() - 2;
+        int[][] postings = new int[gramCount][];
+        for (int i = 0; i < gramCount; i++) {
+            int[] posting = trigrams.get(gram(query, i, 3));
+            if (posting == null) {
+                return NONE;
+            }
+            postings[i] = posting;
+        }
+        Arrays.sort(postings, (a, b) -> Integer.compare(a.length, b.length));
+
+        int[] result = postings[0];
+        for (int i = 1; i < postings.length && result.length > 0; i++) {
+            result = intersect(result, postings[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Verifies which texts contain the query.
+     *
+     * @param query      the normalized query
+     * @param candidates the sorted text ids to check, or null to check all texts
+     * @return the sorted ids of the matching texts
+     */
+    private int[] scan(String query, int[] candidates) {
+        int count = candidates != null ? candidates.length : texts.length;
+        int[] matches = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int textId = candidates != null ? candidates[i] : i;
+            if (texts[textId].contains(query)) {
+                matches[size++] = textId;
+            }
+        }
+        return size == count ? matches : Arrays.copyOf(matches, size);
+    }
+
+    private SearchResult result(String query, int[] textIds) {
+        int total = 0;
+        for (int textId : textIds) {
+            total += textEntries[textId].length;
+        }
+
+        int[] ids = new int[total];
+        if (total > catalog.size() >>> 3) {
+            // Large results: mark the matching entries and collect them in catalog order
+            boolean[] matched = new boolean[catalog.size()];
+            for (int textId : textIds) {
+                for (int id : textEntries[textId]) {
+                    matched[id] = true;
+                }
+            }
+            int size = 0;
+            for (int id = 0; id < matched.length; id++) {
+                if (matched[id]) {
+                    ids[size++] = id;
+                }
+            }
+        } else {
+            int size = 0;
+            for (int textId : textIds) {
+                int[] entries = textEntries[textId];
+                System.arraycopy(entries, 0, ids, size, entries.length);
+                size += entries.length;
+            }
+            Arrays.sort(ids);
+        }
+        return new SearchResult(this, query, textIds, ids);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static long gram(String text, int start, int length) {
+        long key = 0;
+        for (int i = start; i < start + length; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+
+    private static Map<Long, int[]> toPostings(Map<Long, IntList> lists) {
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, IntList> entry : lists.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return postings;
+    }
+
+    /**
+     * Builds the text an entry is searched by: its name without color codes and its tags, separated by newlines
+     * so queries never match across the boundary of two fields.
+     */
+    private static String searchableText(ItemCatalog catalog, int id) {
+        StringBuilder text = new StringBuilder();
+        String name = catalog.getName(id);
+        if (name != null) {
+            text.append(normalize(name));
+        }
+        List<String> tags = catalog.getTags(id);
+        for (String tag : tags) {
+            text.append('\n').append(normalize(tag));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Lowercases text and strips legacy color codes.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c == '&' || c == '\u00A7') && i + 1 < text.length() && isColorCode(text.charAt(i + 1))) {
+                i++;
+                continue;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static boolean isColorCode(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')
+                || (c >= 'k' && c <= 'o') || (c >= 'K' && c <= 'O') || c == 'r' || c == 'R';
+    }
+
+    /**
+     * The entries matching a query.
+     */
+    public static final class SearchResult {
+        private final CatalogSearchIndex index;
+        private final String query;
+        private final int[] textIds;
+        private final int[] ids;
+
+        private SearchResult(CatalogSearchIndex index, String query, int[] textIds, int[] ids) {
+            this.index = index;
+            this.query = query;
+            this.textIds = textIds;
+            this.ids = ids;
+        }
+
+        /**
+         * Gets the catalog the matching entries belong to.
+         *
+         * @return the catalog
+         */
+        public ItemCatalog getCatalog() {
+            return index.catalog;
+        }
+
+        /**
+         * Gets the normalized query.
+         *
+         * @return the query
+         */
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * Gets the ids of the matching entries, in catalog order. The array must not be modified.
+         *
+         * @return the entry ids
+         */
+        public int[] getIds() {
+            return ids;
+        }
+
+        /**
+         * Gets the number of matching entries.
+         *
+         * @return the number of matches
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * Creates a page source showing the matching entries.
+         *
+         * @return the view
+         */
+        public CatalogView toView() {
+            return new CatalogView(index.catalog, ids);
+        }
+    }
+
+    /**
+     * Growable list of primitive ints used while building the index.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addUnique(int value) {
+            // Values are added in increasing order, so duplicates are always the last value
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
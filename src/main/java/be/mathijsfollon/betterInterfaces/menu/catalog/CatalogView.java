@@ -0,0 +1,123 @@
+package be.mathijsfollon.betterInterfaces.menu.catalog;
+
+import be.mathijsfollon.betterInterfaces.api.PageSource;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A list of catalog entries shown by a pageable menu.
+ * The view holds entry ids only, and materializes item stacks when the menu renders a page.
+ */
+public class CatalogView implements PageSource {
+    private final ItemCatalog catalog;
+    private final int[] ids;
+    private final Renderer renderer;
+    private final boolean reversed;
+
+    /**
+     * Creates a view of all entries of a catalog, in catalog order.
+     *
+     * @param catalog the catalog
+     */
+    public CatalogView(ItemCatalog catalog) {
+        this(catalog, null, ItemCatalog::materialize);
+    }
+
+    /**
+     * Creates a view of the given entries.
+     *
+     * @param catalog the catalog
+     * @param ids     the entry ids to show, in display order (not copied)
+     */
+    public CatalogView(ItemCatalog catalog, int[] ids) {
+        this(catalog, ids, ItemCatalog::materialize);
+    }
+
+    /**
+     * Creates a view of the given entries with a custom renderer.
+     *
+     * @param catalog  the catalog
+     * @param ids      the entry ids to show in display order (not copied), or null for all entries
+     * @param renderer creates the item stack of an entry
+     */
+    public CatalogView(ItemCatalog catalog, int[] ids, Renderer renderer) {
+        this(catalog, ids, renderer, false);
+    }
+
+    private CatalogView(ItemCatalog catalog, int[] ids, Renderer renderer, boolean reversed) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (renderer == null) {
+            throw new IllegalArgumentException("Renderer cannot be null");
+        }
+        this.catalog = catalog;
+        this.ids = ids;
+        this.renderer = renderer;
+        this.reversed = reversed;
+    }
+
+    /**
+     * Gets a view of the same entries in the opposite order, without copying the ids.
+     *
+     * @return the reversed view
+     */
+    public CatalogView reversed() {
+        return new CatalogView(catalog, ids, renderer, !reversed);
+    }
+
+    /**
+     * Gets a view of the same entries rendered with another renderer.
+     *
+     * @param renderer creates the item stack of an entry
+     * @return the view
+     */
+    public CatalogView withRenderer(Renderer renderer) {
+        return new CatalogView(catalog, ids, renderer, reversed);
+    }
+
+    /**
+     * Gets the catalog this view shows entries of.
+     *
+     * @return the catalog
+     */
+    public ItemCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Gets the catalog entry id at a position of this view.
+     * Use this with {@link be.mathijsfollon.betterInterfaces.api.PageableMenu#getSourceIndex(int)} to find the clicked entry.
+     *
+     * @param index the position in this view
+     * @return the entry id
+     */
+    public int getId(int index) {
+        int position = reversed ? size() - 1 - index : index;
+        return ids != null ? ids[position] : position;
+    }
+
+    @Override
+    public int size() {
+        return ids != null ? ids.length : catalog.size();
+    }
+
+    @Override
+    public ItemStack render(int index) {
+        return renderer.render(catalog, getId(index));
+    }
+
+    /**
+     * Creates the item stack for a catalog entry.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        /**
+         * Creates the item stack for a catalog entry.
+         *
+         * @param catalog the catalog
+         * @param id      the entry id
+         * @return the item stack, or null to leave the slot empty
+         */
+        ItemStack render(ItemCatalog catalog, int id);
+    }
+}
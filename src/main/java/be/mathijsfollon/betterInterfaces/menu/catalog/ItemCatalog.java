@@ -0,0 +1,348 @@
+package be.mathijsfollon.betterInterfaces.menu.catalog;
+
+import be.mathijsfollon.betterInterfaces.api.util.Builder;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, column-oriented catalog of menu entries.
+ *
+ * Entries are stored in primitive columns (material ordinal, amount, price) plus indices into pools of
+ * interned names and lores, instead of as {@link ItemStack}s. A catalog of 60k entries takes a few megabytes,
+ * independent of how heavy the item meta of each entry would be. Item stacks are only materialized for the
+ * entries that are actually shown, see {@link CatalogView}.
+ *
+ * Entry ids are dense, from 0 to {@link #size()} - 1, in the order the entries were added.
+ */
+public final class ItemCatalog {
+    private static final Material[] MATERIALS = Material.values();
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final int size;
+    private final int[] materials;
+    private final byte[] amounts;
+    private final int[] names;
+    private final int[] lores;
+    private final long[] prices;
+    private final byte[] rarities;
+    private final int[] tags;
+    private final String[] namePool;
+    private final List<String>[] lorePool;
+    private final List<String>[] tagPool;
+
+    private ItemCatalog(CatalogBuilder builder) {
+        this.version = VERSIONS.incrementAndGet();
+        this.size = builder.size;
+        this.materials = Arrays.copyOf(builder.materials, size);
+        this.amounts = Arrays.copyOf(builder.amounts, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.lores = Arrays.copyOf(builder.lores, size);
+        this.prices = Arrays.copyOf(builder.prices, size);
+        this.rarities = Arrays.copyOf(builder.rarities, size);
+        this.tags = Arrays.copyOf(builder.tags, size);
+        this.namePool = builder.namePool.toArray(new String[0]);
+        @SuppressWarnings("unchecked")
+        List<String>[] lorePool = builder.lorePool.toArray(new List[0]);
+        this.lorePool = lorePool;
+        @SuppressWarnings("unchecked")
+        List<String>[] tagPool = builder.tagPool.toArray(new List[0]);
+        this.tagPool = tagPool;
+    }
+
+    /**
+     * Creates a new catalog builder.
+     *
+     * @return the builder
+     */
+    public static CatalogBuilder builder() {
+        return new CatalogBuilder();
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the version of this catalog. Every built catalog has a unique version,
+     * so it can be used to key data derived from the catalog.
+     *
+     * @return the version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Gets the material of an entry.
+     *
+     * @param id the entry id
+     * @return the material
+     */
+    public Material getMaterial(int id) {
+        return MATERIALS[materials[checkId(id)]];
+    }
+
+    /**
+     * Gets the stack amount of an entry.
+     *
+     * @param id the entry id
+     * @return the amount
+     */
+    public int getAmount(int id) {
+        return amounts[checkId(id)];
+    }
+
+    /**
+     * Gets the display name of an entry, in legacy ampersand format.
+     *
+     * @param id the entry id
+     * @return the name, or null if the entry has none
+     */
+    public String getName(int id) {
+        int name = names[checkId(id)];
+        return name >= 0 ? namePool[name] : null;
+    }
+
+    /**
+     * Gets the lore of an entry, in legacy ampersand format.
+     *
+     * @param id the entry id
+     * @return the lore lines, empty if the entry has none
+     */
+    public List<String> getLore(int id) {
+        int lore = lores[checkId(id)];
+        return lore >= 0 ? lorePool[lore] : List.of();
+    }
+
+    /**
+     * Gets the price of an entry.
+     *
+     * @param id the entry id
+     * @return the price
+     */
+    public long getPrice(int id) {
+        return prices[checkId(id)];
+    }
+
+    /**
+     * Gets the rarity of an entry. Higher values are rarer.
+     *
+     * @param id the entry id
+     * @return the rarity, 0 if none was set
+     */
+    public int getRarity(int id) {
+        return rarities[checkId(id)];
+    }
+
+    /**
+     * Gets the search tags of an entry.
+     *
+     * @param id the entry id
+     * @return the tags, empty if the entry has none
+     */
+    public List<String> getTags(int id) {
+        int tagSet = tags[checkId(id)];
+        return tagSet >= 0 ? tagPool[tagSet] : List.of();
+    }
+
+    /**
+     * Gets the index of an entry's tags in the tag pool. Entries with equal tags share an index.
+     *
+     * @param id the entry id
+     * @return the tag set index, or -1 if the entry has no tags
+     */
+    int tagSetIndex(int id) {
+        return tags[id];
+    }
+
+    /**
+     * Gets the index of an entry's name in the name pool. Entries with equal names share an index.
+     *
+     * @param id the entry id
+     * @return the name index, or -1 if the entry has no name
+     */
+    int nameIndex(int id) {
+        return names[id];
+    }
+
+    /**
+     * Gets the number of distinct names.
+     *
+     * @return the name pool size
+     */
+    int namePoolSize() {
+        return namePool.length;
+    }
+
+    /**
+     * Gets a name from the name pool.
+     *
+     * @param index the name index
+     * @return the name
+     */
+    String pooledName(int index) {
+        return namePool[index];
+    }
+
+    /**
+     * Creates the item stack for an entry.
+     *
+     * @param id the entry id
+     * @return a new item stack
+     */
+    public ItemStack materialize(int id) {
+        ItemStack item = new ItemStack(getMaterial(id), amounts[id]);
+        String name = getName(id);
+        List<String> lore = getLore(id);
+        if (name != null || !lore.isEmpty()) {
+            item.editMeta(meta -> {
+                if (name != null) {
+                    meta.displayName(LegacyComponentSerializer.legacyAmpersand().deserialize(name));
+                }
+                if (!lore.isEmpty()) {
+                    List<Component> lines = new ArrayList<>(lore.size());
+                    for (String line : lore) {
+                        lines.add(LegacyComponentSerializer.legacyAmpersand().deserialize(line));
+                    }
+                    meta.lore(lines);
+                }
+            });
+        }
+        return item;
+    }
+
+    private int checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Entry id out of bounds: " + id);
+        }
+        return id;
+    }
+
+    /**
+     * Builder for {@link ItemCatalog}. Names and lores are interned while adding entries.
+     */
+    public static final class CatalogBuilder implements Builder<ItemCatalog> {
+        private int size;
+        private int[] materials = new int[64];
+        private byte[] amounts = new byte[64];
+        private int[] names = new int[64];
+        private int[] lores = new int[64];
+        private long[] prices = new long[64];
+        private byte[] rarities = new byte[64];
+        private int[] tags = new int[64];
+        private final List<String> namePool = new ArrayList<>();
+        private final Map<String, Integer> nameIndex = new HashMap<>();
+        private final List<List<String>> lorePool = new ArrayList<>();
+        private final Map<List<String>, Integer> loreIndex = new HashMap<>();
+        private final List<List<String>> tagPool = new ArrayList<>();
+        private final Map<List<String>, Integer> tagIndex = new HashMap<>();
+
+        private CatalogBuilder() {
+        }
+
+        /**
+         * Adds an entry.
+         *
+         * @param material the material
+         * @param amount   the stack amount (1-99)
+         * @param name     the display name in legacy ampersand format (can be null)
+         * @param lore     the lore lines in legacy ampersand format (can be null)
+         * @param price    the price
+         * @return the id of the added entry
+         */
+        public int add(Material material, int amount, String name, List<String> lore, long price) {
+            if (material == null) {
+                throw new IllegalArgumentException("Material cannot be null");
+            }
+            if (amount < 1 || amount > 99) {
+                throw new IllegalArgumentException("Amount must be between 1 and 99");
+            }
+            ensureCapacity(size + 1);
+
+            int id = size++;
+            materials[id] = material.ordinal();
+            amounts[id] = (byte) amount;
+            names[id] = name != null ? nameIndex.computeIfAbsent(name, key -> {
+                namePool.add(key);
+                return namePool.size() - 1;
+            }) : -1;
+            lores[id] = lore != null && !lore.isEmpty() ? loreIndex.computeIfAbsent(List.copyOf(lore), key -> {
+                lorePool.add(key);
+                return lorePool.size() - 1;
+            }) : -1;
+            prices[id] = price;
+            tags[id] = -1;
+            return id;
+        }
+
+        /**
+         * Sets the rarity of an entry, used for sorting.
+         *
+         * @param id     the entry id returned by {@link #add}
+         * @param rarity the rarity (0-127, higher is rarer)
+         * @return this builder
+         */
+        public CatalogBuilder rarity(int id, int rarity) {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("Entry id out of bounds: " + id);
+            }
+            if (rarity < 0 || rarity > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Rarity must be between 0 and 127");
+            }
+            rarities[id] = (byte) rarity;
+            return this;
+        }
+
+        /**
+         * Sets the search tags of an entry, e.g. "ore" or "weapon".
+         *
+         * @param id   the entry id returned by {@link #add}
+         * @param tags the tags
+         * @return this builder
+         */
+        public CatalogBuilder tags(int id, String... tags) {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("Entry id out of bounds: " + id);
+            }
+            this.tags[id] = tags.length > 0 ? tagIndex.computeIfAbsent(List.of(tags), key -> {
+                tagPool.add(key);
+                return tagPool.size() - 1;
+            }) : -1;
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= materials.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, materials.length + (materials.length >> 1));
+            materials = Arrays.copyOf(materials, newCapacity);
+            amounts = Arrays.copyOf(amounts, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            lores = Arrays.copyOf(lores, newCapacity);
+            prices = Arrays.copyOf(prices, newCapacity);
+            rarities = Arrays.copyOf(rarities, newCapacity);
+            tags = Arrays.copyOf(tags, newCapacity);
+        }
+
+        @Override
+        public ItemCatalog build() {
+            return new ItemCatalog(this);
+        }
+    }
+}
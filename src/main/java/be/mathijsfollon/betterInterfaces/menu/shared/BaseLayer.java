@@ -0,0 +1,118 @@
+package be.mathijsfollon.betterInterfaces.menu.shared;
+
+import be.mathijsfollon.betterInterfaces.api.MenuItem;
+import be.mathijsfollon.betterInterfaces.api.util.Builder;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Immutable layer of menu items shared by every player's copy of a menu.
+ * A {@link LayeredMenu} shows the base layer with a small per-player overlay on top; the base items themselves
+ * are never copied per player.
+ *
+ * The item stacks of a base layer must not be modified after the layer is built.
+ */
+public final class BaseLayer {
+    private final MenuItem[] items;
+    private final ItemStack[] stacks;
+    private final long slots;
+
+    private BaseLayer(MenuItem[] items) {
+        this.items = items;
+        this.stacks = new ItemStack[items.length];
+        long slots = 0;
+        for (int slot = 0; slot < items.length; slot++) {
+            stacks[slot] = items[slot] != null ? items[slot].getItemStack() : null;
+            if (items[slot] != null) {
+                slots |= 1L << slot;
+            }
+        }
+        this.slots = slots;
+    }
+
+    /**
+     * Creates a builder for a base layer.
+     *
+     * @param size the inventory size of the menus using the layer
+     * @return the builder
+     */
+    public static LayerBuilder builder(int size) {
+        return new LayerBuilder(size);
+    }
+
+    /**
+     * Gets the base item of a slot.
+     *
+     * @param slot the slot
+     * @return the item, or null if the base leaves the slot empty
+     */
+    public MenuItem getItem(int slot) {
+        return slot >= 0 && slot < items.length ? items[slot] : null;
+    }
+
+    /**
+     * Gets the item stack of a slot.
+     *
+     * @param slot the slot
+     * @return the item stack, or null if the base leaves the slot empty
+     */
+    public ItemStack getItemStack(int slot) {
+        return slot >= 0 && slot < stacks.length ? stacks[slot] : null;
+    }
+
+    /**
+     * Gets the slots the base layer fills.
+     *
+     * @return bitmask of the slots that have a base item
+     */
+    public long getSlots() {
+        return slots;
+    }
+
+    public int getSize() {
+        return items.length;
+    }
+
+    /**
+     * Builder for {@link BaseLayer}.
+     */
+    public static final class LayerBuilder implements Builder<BaseLayer> {
+        private final MenuItem[] items;
+
+        private LayerBuilder(int size) {
+            if (size % 9 != 0 || size < 9 || size > 54) {
+                throw new IllegalArgumentException("Size must be a multiple of 9 between 9 and 54");
+            }
+            this.items = new MenuItem[size];
+        }
+
+        public LayerBuilder item(MenuItem item) {
+            if (item == null) {
+                throw new IllegalArgumentException("Item cannot be null");
+            }
+            if (item.getSlot() < 0 || item.getSlot() >= items.length) {
+                throw new IllegalArgumentException("Slot " + item.getSlot() + " is outside the menu");
+            }
+            if (item.isMovable()) {
+                throw new IllegalArgumentException("Base layer items are shared and cannot be movable");
+            }
+            items[item.getSlot()] = item;
+            return this;
+        }
+
+        /**
+         * Gets the size of the layer being built.
+         *
+         * @return the inventory size
+         */
+        public int size() {
+            return items.length;
+        }
+
+        @Override
+        public BaseLayer build() {
+            return new BaseLayer(Arrays.copyOf(items, items.length));
+        }
+    }
+}
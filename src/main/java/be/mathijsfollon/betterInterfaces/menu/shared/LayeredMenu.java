@@ -0,0 +1,116 @@
+package be.mathijsfollon.betterInterfaces.menu.shared;
+
+import be.mathijsfollon.betterInterfaces.api.MenuItem;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
+import be.mathijsfollon.betterInterfaces.menu.AbstractMenu;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Menu that shows a shared {@link BaseLayer} with a per-player overlay on top.
+ *
+ * Items added to this menu form the overlay, e.g. the player's balance or head. The base layer sits underneath
+ * all render layers of the menu and is referenced, not copied: the only per-player copy of it is the final
+ * slot array written to the inventory.
+ */
+public class LayeredMenu extends AbstractMenu {
+    private BaseLayer base;
+    private LayeredMenuDefinition definition;
+
+    /**
+     * Creates a new LayeredMenu.
+     *
+     * @param title        the menu title
+     * @param base         the shared base layer
+     * @param player       the player this menu is for
+     * @param eventManager the event manager for firing events
+     * @param plugin       the plugin instance
+     */
+    public LayeredMenu(Component title, BaseLayer base, Player player, MenuEventManager eventManager, Plugin plugin) {
+        super(title, base.getSize(), player, eventManager, plugin);
+        this.base = base;
+    }
+
+    /**
+     * Sets the definition that created this menu, which tracks the menu while it is open.
+     *
+     * @param definition the definition
+     */
+    void setDefinition(LayeredMenuDefinition definition) {
+        this.definition = definition;
+    }
+
+    @Override
+    protected void onOpenChanged(boolean open) {
+        if (definition == null) {
+            return;
+        }
+        if (open) {
+            definition.menuOpened(this);
+            // Catch up with a base rebuilt while this menu was closed, e.g. when navigating back to it
+            setBase(definition.getBase());
+        } else {
+            definition.menuClosed(this);
+        }
+    }
+
+    /**
+     * Gets the base layer this menu shows.
+     *
+     * @return the base layer
+     */
+    public BaseLayer getBase() {
+        return base;
+    }
+
+    /**
+     * Replaces the base layer, e.g. after the definition rebuilt it, and redraws the menu if it is open.
+     *
+     * @param base the new base layer
+     */
+    public void setBase(BaseLayer base) {
+        if (base == null) {
+            throw new IllegalArgumentException("Base layer cannot be null");
+        }
+        if (base.getSize() != getSize()) {
+            throw new IllegalArgumentException("Base layer size " + base.getSize() + " does not match menu size " + getSize());
+        }
+        if (this.base == base) {
+            return;
+        }
+        this.base = base;
+        // Every slot may show a different base item now
+        invalidateSlots(-1L >>> (64 - getSize()));
+    }
+
+    /**
+     * Replaces the base layer on the thread owning the player: right away if that is the current thread,
+     * otherwise on the next tick.
+     *
+     * @param base the new base layer
+     */
+    void setBaseOnOwner(BaseLayer base) {
+        if (scheduler == null || scheduler.isOwnedByCurrentThread(player)) {
+            setBase(base);
+        } else {
+            scheduler.run(player, () -> setBase(base));
+        }
+    }
+
+    /**
+     * Gets the base item of a slot, shown wherever the menu's own layers leave the slot free.
+     *
+     * @param slot the slot index
+     * @return the base item, or null
+     */
+    @Override
+    protected MenuItem getBaseItem(int slot) {
+        return base.getItem(slot);
+    }
+
+    @Override
+    protected long getBaseSlots() {
+        return base.getSlots();
+    }
+}
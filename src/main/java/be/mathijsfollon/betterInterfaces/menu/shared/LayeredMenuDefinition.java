@@ -0,0 +1,119 @@
+package be.mathijsfollon.betterInterfaces.menu.shared;
+
+import be.mathijsfollon.betterInterfaces.api.Menu;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuService;
+import be.mathijsfollon.betterInterfaces.menu.AbstractMenuDefinition;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abstract base class for menu definitions that are mostly the same for every player.
+ *
+ * {@link #buildBase(BaseLayer.LayerBuilder)} builds the shared part of the menu once per definition.
+ * {@link #onCreateOverlay(LayeredMenu, MenuOpenContextStore)} adds the few per-player items on every open.
+ * Reloading the definition builds a new base; {@link #invalidateBase()} rebuilds it in place and updates every
+ * open menu of the definition. Closed menus pick up the current base when they are opened again.
+ */
+public abstract class LayeredMenuDefinition extends AbstractMenuDefinition {
+    private final Set<LayeredMenu> openMenus;
+    private volatile BaseLayer base;
+
+    /**
+     * Creates a new LayeredMenuDefinition.
+     *
+     * @param id The unique identifier for this menu
+     * @param title The menu title
+     * @param rows The number of rows (1-6)
+     */
+    public LayeredMenuDefinition(String id, String title, int rows) {
+        super(id, title, rows);
+        // Only open menus are kept, so invalidating the base costs the number of viewers, not of menus ever created
+        this.openMenus = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Gets the shared base layer, building it on first use.
+     *
+     * @return the base layer
+     */
+    public BaseLayer getBase() {
+        BaseLayer current = base;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (base == null) {
+                BaseLayer.LayerBuilder builder = BaseLayer.builder(getSize());
+                buildBase(builder);
+                base = builder.build();
+            }
+            return base;
+        }
+    }
+
+    /**
+     * Rebuilds the base layer and shows it in every open menu of this definition.
+     * Call this after the data the base is built from changed. The base is rebuilt on the calling thread; every
+     * menu switches to it on the thread owning its player, which on Folia may be a different region thread.
+     */
+    public void invalidateBase() {
+        synchronized (this) {
+            base = null;
+        }
+        BaseLayer rebuilt = getBase();
+
+        for (LayeredMenu menu : openMenus) {
+            menu.setBaseOnOwner(rebuilt);
+        }
+    }
+
+    /**
+     * Tracks a menu of this definition that was opened.
+     *
+     * @param menu the opened menu
+     */
+    void menuOpened(LayeredMenu menu) {
+        openMenus.add(menu);
+    }
+
+    /**
+     * Stops tracking a menu of this definition that was closed.
+     *
+     * @param menu the closed menu
+     */
+    void menuClosed(LayeredMenu menu) {
+        openMenus.remove(menu);
+    }
+
+    @Override
+    protected Menu createMenu(Player player, MenuService service, Plugin plugin) {
+        LayeredMenu menu = new LayeredMenu(getTitle(), getBase(), player, service.getEventManager(), plugin);
+        menu.setDefinition(this);
+        return menu;
+    }
+
+    @Override
+    public Menu onCreate(Menu menu, MenuOpenContextStore ctx) {
+        onCreateOverlay((LayeredMenu) menu, ctx);
+        return menu;
+    }
+
+    /**
+     * Builds the shared base layer. Called once per definition, and again after {@link #invalidateBase()}.
+     *
+     * @param builder the builder to add the base items to
+     */
+    protected abstract void buildBase(BaseLayer.LayerBuilder builder);
+
+    /**
+     * Called on every open to add the per-player overlay items.
+     *
+     * @param menu The menu of the opening player
+     * @param ctx The menu open context
+     */
+    protected abstract void onCreateOverlay(LayeredMenu menu, MenuOpenContextStore ctx);
+}
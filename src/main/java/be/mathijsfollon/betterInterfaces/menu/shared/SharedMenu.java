@@ -0,0 +1,437 @@
+package be.mathijsfollon.betterInterfaces.menu.shared;
+
+import be.mathijsfollon.betterInterfaces.api.Menu;
+import be.mathijsfollon.betterInterfaces.api.MenuClickThrottle;
+import be.mathijsfollon.betterInterfaces.api.MenuItem;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuService;
+import be.mathijsfollon.betterInterfaces.api.MenuSession;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEvent;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
+import be.mathijsfollon.betterInterfaces.events.MenuClickEvent;
+import be.mathijsfollon.betterInterfaces.events.MenuCloseEvent;
+import be.mathijsfollon.betterInterfaces.events.MenuEventPool;
+import be.mathijsfollon.betterInterfaces.metrics.MenuMetrics;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Menu whose single inventory is shown to many players at once, e.g. a server selector or event board that
+ * looks the same for everyone.
+ *
+ * Every viewer gets a lightweight {@link View} holding its own session and context, so events, navigation and
+ * the click throttle work per player. Items are set once on the shared inventory and every viewer sees the
+ * change. The menu registers one Bukkit listener, however many players view it.
+ *
+ * Items in a shared menu can never be moved, since moving one would move it for every viewer.
+ *
+ * On a regionized server (Folia) the viewers of one inventory may be ticked by different threads, so shared
+ * menus should only be used for players in the same region, e.g. a lobby.
+ */
+public class SharedMenu implements Listener {
+    protected final Inventory inventory;
+    protected final Map<Integer, MenuItem> items;
+    protected final Map<UUID, View> viewers;
+    protected final MenuEventManager eventManager;
+    protected final Plugin plugin;
+    protected MenuClickThrottle clickThrottle;
+    protected MenuMetrics metrics;
+    protected String menuId;
+
+    /**
+     * Creates a new SharedMenu.
+     *
+     * @param title        the menu title
+     * @param size         the inventory size (must be multiple of 9)
+     * @param eventManager the event manager for firing events
+     * @param plugin       the plugin instance
+     */
+    public SharedMenu(Component title, int size, MenuEventManager eventManager, Plugin plugin) {
+        if (size % 9 != 0 || size < 9 || size > 54) {
+            throw new IllegalArgumentException("Size must be a multiple of 9 between 9 and 54");
+        }
+        this.inventory = Bukkit.createInventory(null, size, title);
+        this.items = new ConcurrentHashMap<>();
+        this.viewers = new ConcurrentHashMap<>();
+        this.eventManager = eventManager;
+        this.plugin = plugin;
+
+        // One listener serves every viewer
+        if (plugin != null) {
+            Bukkit.getPluginManager().registerEvents(this, plugin);
+        }
+    }
+
+    /**
+     * Creates the view of a player. The view is opened through its session like any other menu.
+     *
+     * @param player the player
+     * @return the view
+     */
+    public View viewFor(Player player) {
+        if (player == null) {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+        return new View(player);
+    }
+
+    /**
+     * Adds a menu item. The item is written to the shared inventory once, and shown to all viewers.
+     *
+     * @param item the menu item to add
+     */
+    public void addItem(MenuItem item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        items.put(item.getSlot(), item);
+        writeSlot(item.getSlot(), item.getItemStack());
+    }
+
+    /**
+     * Removes a menu item.
+     *
+     * @param slot the slot to remove the item from
+     */
+    public void removeItem(int slot) {
+        if (items.remove(slot) != null) {
+            writeSlot(slot, null);
+        }
+    }
+
+    /**
+     * Writes the current item stack of a slot to the shared inventory again, e.g. after changing the item's meta.
+     *
+     * @param slot the slot to update
+     */
+    public void updateItem(int slot) {
+        MenuItem item = items.get(slot);
+        writeSlot(slot, item != null ? item.getItemStack() : null);
+    }
+
+    /**
+     * Gets a menu item at the specified slot.
+     *
+     * @param slot the slot index
+     * @return the menu item, or null if no item at that slot
+     */
+    public MenuItem getItem(int slot) {
+        return items.get(slot);
+    }
+
+    /**
+     * Gets all menu items in this menu.
+     *
+     * @return a collection of all menu items
+     */
+    public Collection<MenuItem> getItems() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
+    /**
+     * Clears all items from this menu.
+     */
+    public void clearItems() {
+        items.clear();
+        inventory.clear();
+    }
+
+    private void writeSlot(int slot, ItemStack stack) {
+        if (slot < 0 || slot >= inventory.getSize()) {
+            return;
+        }
+        inventory.setItem(slot, stack);
+        if (metrics != null) {
+            metrics.slotWrites(menuId, 1);
+        }
+    }
+
+    /**
+     * Gets the players currently viewing this menu.
+     *
+     * @return the viewers
+     */
+    public List<Player> getViewers() {
+        List<Player> players = new ArrayList<>(viewers.size());
+        for (View view : viewers.values()) {
+            players.add(view.player);
+        }
+        return players;
+    }
+
+    /**
+     * Gets the number of players currently viewing this menu.
+     *
+     * @return the number of viewers
+     */
+    public int getViewerCount() {
+        return viewers.size();
+    }
+
+    /**
+     * Gets the view of a player currently viewing this menu.
+     *
+     * @param player the player
+     * @return the view, or empty if the player is not viewing this menu
+     */
+    public Optional<View> getView(Player player) {
+        return Optional.ofNullable(viewers.get(player.getUniqueId()));
+    }
+
+    /**
+     * Closes the menu for every viewer.
+     */
+    public void closeAll() {
+        for (View view : new ArrayList<>(viewers.values())) {
+            view.close(true);
+        }
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public int getSize() {
+        return inventory.getSize();
+    }
+
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (!event.getInventory().equals(inventory)) {
+            return;
+        }
+
+        View view = viewOf(event.getWhoClicked());
+        int slot = event.getRawSlot();
+
+        // Never let anything move into or out of the shared inventory. Clicks in the player's own inventory can
+        // reach it too (shift-clicks, double-click collecting, hotbar swaps), so every click is cancelled and
+        // clicks on the shared inventory are handled here instead.
+        event.setCancelled(true);
+        if (view == null || slot < 0 || slot >= inventory.getSize()) {
+            return;
+        }
+
+        // Drop clicks from players clicking faster than allowed before doing any work
+        if (view.clickThrottle != null && view.clickThrottle.admit(view.player.getUniqueId(), menuId, slot) != MenuClickThrottle.Verdict.ADMITTED) {
+            return;
+        }
+        if (metrics != null) {
+            metrics.click(menuId);
+        }
+
+        if (view.handleButton(slot)) {
+            return;
+        }
+
+        // Route the click to the handlers with the clicking viewer's session and context
+        if (view.session != null && view.context != null && view.hasHandlers(MenuClickEvent.class)) {
+            MenuClickEvent clickEvent = MenuEventPool.of(eventManager).acquireClickEvent(
+                    view.player,
+                    view,
+                    view.session,
+                    view.context,
+                    slot,
+                    event::getCurrentItem,
+                    items.get(slot),
+                    event.getClick()
+            );
+            eventManager.fireEvent(clickEvent);
+            MenuEventPool.of(eventManager).release(clickEvent);
+        }
+    }
+
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (!event.getInventory().equals(inventory)) {
+            return;
+        }
+        for (int slot : event.getRawSlots()) {
+            if (slot < inventory.getSize()) {
+                event.setCancelled(true);
+                return;
+            }
+        }
+    }
+
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (!event.getInventory().equals(inventory)) {
+            return;
+        }
+
+        View view = viewOf(event.getPlayer());
+        if (view == null || !view.leave()) {
+            return;
+        }
+
+        // Closed by the player (or by disconnecting); programmatic closes already left the menu
+        if (view.session != null && view.context != null && view.hasHandlers(MenuCloseEvent.class)) {
+            MenuCloseEvent closeEvent = MenuEventPool.of(eventManager).acquireCloseEvent(view.player, view, view.session, view.context, false);
+            eventManager.fireEvent(closeEvent);
+            MenuEventPool.of(eventManager).release(closeEvent);
+        }
+    }
+
+    private View viewOf(HumanEntity entity) {
+        return viewers.get(entity.getUniqueId());
+    }
+
+    /**
+     * One player's view of a shared menu.
+     * Holds the per-player state: the session, the open context and the player's place in the viewer list.
+     */
+    public final class View implements Menu {
+        private final Player player;
+        private MenuSession session;
+        private MenuOpenContextStore context;
+        private MenuClickThrottle clickThrottle;
+
+        private View(Player player) {
+            this.player = player;
+        }
+
+        /**
+         * Sets the session and context of this view. Called by the session before opening.
+         *
+         * @param session the menu session
+         * @param context the menu open context
+         */
+        public void setSessionAndContext(MenuSession session, MenuOpenContextStore context) {
+            this.session = session;
+            this.context = context;
+            Optional<MenuService> service = context != null ? context.get("menu-service", MenuService.class) : Optional.empty();
+            this.clickThrottle = service.map(MenuService::getClickThrottle).orElse(null);
+
+            // The shared menu takes its metrics and id from the first viewer
+            if (menuId == null && context != null) {
+                menuId = context.get("menu-id", String.class).orElse(null);
+            }
+            MenuMetrics serviceMetrics = service.map(MenuService::getMetrics).orElse(null);
+            if (serviceMetrics != null && metrics == null) {
+                serviceMetrics.menuCreated();
+                metrics = serviceMetrics;
+            }
+        }
+
+        @Override
+        public void open() {
+            if (isOpen() || !player.isOnline()) {
+                return;
+            }
+
+            // A player reopening the menu leaves their previous view first, like a programmatic close.
+            // Opening the inventory again fires a close event for it, which must not find any view.
+            View previous = viewers.get(player.getUniqueId());
+            if (previous != null) {
+                previous.leave();
+            }
+            player.openInventory(inventory);
+            if (!player.getOpenInventory().getTopInventory().equals(inventory)) {
+                return; // Opening was cancelled
+            }
+            viewers.put(player.getUniqueId(), this);
+            if (metrics != null) {
+                metrics.menuOpened(menuId);
+            }
+        }
+
+        @Override
+        public void close() {
+            close(false);
+        }
+
+        @Override
+        public void close(boolean silently) {
+            // Leave first, so the close event of the inventory is not reported a second time
+            if (!leave()) {
+                return;
+            }
+            if (player.isOnline() && player.getOpenInventory().getTopInventory().equals(inventory)) {
+                player.closeInventory();
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return viewers.get(player.getUniqueId()) == this && player.isOnline()
+                    && player.getOpenInventory().getTopInventory().equals(inventory);
+        }
+
+        /**
+         * Removes this view from the viewers.
+         *
+         * @return true if this view was viewing the menu
+         */
+        private boolean leave() {
+            if (!viewers.remove(player.getUniqueId(), this)) {
+                return false;
+            }
+            if (metrics != null) {
+                metrics.menuClosed(menuId);
+            }
+            return true;
+        }
+
+        private boolean handleButton(int slot) {
+            if (context == null || session == null) {
+                return false;
+            }
+            Integer closeSlot = context.get("close-button-slot", Integer.class).orElse(null);
+            if (closeSlot != null && closeSlot == slot) {
+                session.close(true);
+                return true;
+            }
+            Integer backSlot = context.get("back-button-slot", Integer.class).orElse(null);
+            if (backSlot != null && backSlot == slot) {
+                return session.goBack();
+            }
+            return false;
+        }
+
+        private boolean hasHandlers(Class<? extends MenuEvent> eventType) {
+            Class<?> definitionClass = context != null ? context.getMenuDefinitionClass().orElse(null) : null;
+            return eventManager.hasHandlers(eventType, definitionClass);
+        }
+
+        /**
+         * Gets the shared menu this view shows.
+         *
+         * @return the shared menu
+         */
+        public SharedMenu getMenu() {
+            return SharedMenu.this;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public MenuSession getSession() {
+            return session;
+        }
+
+        public MenuOpenContextStore getContext() {
+            return context;
+        }
+    }
+}
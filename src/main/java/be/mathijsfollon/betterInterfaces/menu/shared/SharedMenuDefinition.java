@@ -0,0 +1,132 @@
+package be.mathijsfollon.betterInterfaces.menu.shared;
+
+import be.mathijsfollon.betterInterfaces.api.Menu;
+import be.mathijsfollon.betterInterfaces.api.MenuDefinition;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuService;
+import be.mathijsfollon.betterInterfaces.api.events.MenuEventListener;
+import be.mathijsfollon.betterInterfaces.events.MenuOpenEvent;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Abstract base class for menu definitions whose menu is the same for every player.
+ * The first open builds one {@link SharedMenu} and calls {@link #onCreate(SharedMenu)}; every open after that,
+ * by any player, only adds a viewer to the same inventory.
+ *
+ * Event handlers on the definition receive each viewer's own session and context.
+ */
+public abstract class SharedMenuDefinition implements MenuDefinition, MenuEventListener {
+    protected final String id;
+    protected final String title;
+    protected final int rows;
+    private volatile SharedMenu sharedMenu;
+
+    /**
+     * Creates a new SharedMenuDefinition.
+     *
+     * @param id    The unique identifier for this menu
+     * @param title The menu title
+     * @param rows  The number of rows (1-6)
+     */
+    public SharedMenuDefinition(String id, String title, int rows) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Menu ID cannot be null or empty");
+        }
+        if (rows < 1 || rows > 6) {
+            throw new IllegalArgumentException("Rows must be between 1 and 6");
+        }
+        this.id = id;
+        this.title = title;
+        this.rows = rows;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int getSize() {
+        return rows * 9;
+    }
+
+    @Override
+    public Component getTitle() {
+        return title != null ? LegacyComponentSerializer.legacyAmpersand().deserialize(title) : Component.empty();
+    }
+
+    @Override
+    public List<ItemStack> getItemStacks() {
+        return List.of();
+    }
+
+    /**
+     * Creates the view of the opening player on the shared menu, building the shared menu on the first open.
+     *
+     * @param ctx The menu open context
+     * @param sessionFuture Future that completes when menu opens
+     * @return The player's view of the shared menu
+     */
+    @Override
+    public Menu create(MenuOpenContextStore ctx, CompletableFuture<MenuOpenEvent> sessionFuture) {
+        Player player = ctx.getPlayer().orElse(null);
+        if (player == null) {
+            throw new IllegalStateException("Player must be set in MenuOpenContextStore");
+        }
+        return getOrCreate(ctx).viewFor(player);
+    }
+
+    private SharedMenu getOrCreate(MenuOpenContextStore ctx) {
+        SharedMenu menu = sharedMenu;
+        if (menu != null) {
+            return menu;
+        }
+
+        synchronized (this) {
+            if (sharedMenu == null) {
+                Plugin plugin = ctx.get("plugin", Plugin.class).orElse(null);
+                if (plugin == null) {
+                    throw new IllegalStateException("Plugin must be set in MenuOpenContextStore");
+                }
+                MenuService service = ctx.get("menu-service", MenuService.class).orElse(null);
+                if (service == null) {
+                    throw new IllegalStateException("MenuService must be set in MenuOpenContextStore");
+                }
+
+                SharedMenu created = new SharedMenu(getTitle(), getSize(), service.getEventManager(), plugin);
+                MenuTracer tracer = service.getTracer();
+                long traceStart = tracer != null ? tracer.start() : 0L;
+                onCreate(created);
+                if (tracer != null) {
+                    tracer.record(ctx, "onCreate", traceStart);
+                }
+                sharedMenu = created;
+            }
+            return sharedMenu;
+        }
+    }
+
+    /**
+     * Gets the shared menu, e.g. to update an item for every viewer.
+     *
+     * @return the shared menu, or null if nobody opened it yet
+     */
+    public SharedMenu getSharedMenu() {
+        return sharedMenu;
+    }
+
+    /**
+     * Called once, on the first open, to configure the shared menu layout.
+     *
+     * @param menu The shared menu to configure
+     */
+    public abstract void onCreate(SharedMenu menu);
+}
@@ -0,0 +1,129 @@
+package be.mathijsfollon.betterInterfaces.menu.viewport;
+
+/**
+ * Large two-dimensional model shown through a {@link ViewportMenu}, e.g. a plot map or a territory board.
+ * Tiles are stored sparsely in a map keyed by their packed coordinates, so a 200x200 board with a few hundred
+ * claimed plots only stores those plots.
+ *
+ * Every change gives the tile a new version. Versions are unique across the board, so menus can cache rendered
+ * tiles by version and know a cached item is stale as soon as the tile's version changes.
+ *
+ * The board is not thread-safe and should be modified on the main thread.
+ *
+ * @param <T> the tile type
+ */
+public class TileBoard<T> {
+    private final int width;
+    private final int height;
+    private final LongKeyMap<Tile<T>> tiles;
+    private long nextVersion;
+
+    /**
+     * Creates an empty board.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     */
+    public TileBoard(int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Board size must be at least 1x1");
+        }
+        this.width = width;
+        this.height = height;
+        this.tiles = new LongKeyMap<>();
+        this.nextVersion = 1;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets a tile.
+     *
+     * @param x the column
+     * @param y the row
+     * @return the tile, or null if the position is empty or outside the board
+     */
+    public T get(int x, int y) {
+        if (!contains(x, y)) {
+            return null;
+        }
+        Tile<T> tile = tiles.get(key(x, y));
+        return tile != null ? tile.value() : null;
+    }
+
+    /**
+     * Gets the version of a tile.
+     *
+     * @param x the column
+     * @param y the row
+     * @return the version, or 0 if the position is empty or outside the board
+     */
+    public long getVersion(int x, int y) {
+        if (!contains(x, y)) {
+            return 0;
+        }
+        Tile<T> tile = tiles.get(key(x, y));
+        return tile != null ? tile.version() : 0;
+    }
+
+    /**
+     * Sets a tile. Setting a tile gives it a new version, even if the value is the same, so call this again
+     * after changing a mutable tile to have menus render it again.
+     *
+     * @param x     the column
+     * @param y     the row
+     * @param value the tile, or null to clear the position
+     */
+    public void set(int x, int y, T value) {
+        if (!contains(x, y)) {
+            throw new IllegalArgumentException("Position " + x + "," + y + " is outside the " + width + "x" + height + " board");
+        }
+        if (value == null) {
+            tiles.remove(key(x, y));
+        } else {
+            tiles.put(key(x, y), new Tile<>(value, nextVersion++));
+        }
+    }
+
+    /**
+     * Clears a position.
+     *
+     * @param x the column
+     * @param y the row
+     */
+    public void remove(int x, int y) {
+        set(x, y, null);
+    }
+
+    /**
+     * Gets the number of non-empty tiles.
+     *
+     * @return the number of tiles
+     */
+    public int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Checks whether a position is on the board.
+     *
+     * @param x the column
+     * @param y the row
+     * @return true if the position is inside the board
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private record Tile<T>(T value, long version) {}
+}
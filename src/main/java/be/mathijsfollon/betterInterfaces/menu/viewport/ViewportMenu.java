@@ -0,0 +1,349 @@
+package be.mathijsfollon.betterInterfaces.menu.viewport;
+
+import be.mathijsfollon.betterInterfaces.api.events.MenuEventManager;
+import be.mathijsfollon.betterInterfaces.menu.AbstractMenu;
+import be.mathijsfollon.betterInterfaces.menu.RenderLayer;
+import be.mathijsfollon.betterInterfaces.menu.SimpleMenuItem;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Menu showing a window of a large {@link TileBoard}.
+ * The top rows show a 9 wide viewport of the board, the bottom row holds the pan arrows and a close button.
+ *
+ * Rendered tiles are cached by tile version. Panning only renders the tiles that scroll into view and the
+ * tiles that changed since they were cached; every other tile reuses its cached item stack, and slots that
+ * already show the right stack are not written at all.
+ *
+ * Click handlers can use {@link #getTileX(int)} and {@link #getTileY(int)} to find the clicked tile.
+ *
+ * @param <T> the tile type
+ */
+public class ViewportMenu<T> extends AbstractMenu {
+    private static final int DEFAULT_CACHE_CAPACITY = 4096;
+
+    private final TileBoard<T> board;
+    private final TileRenderer<T> renderer;
+    private final int viewRows;
+    private final int viewSize;
+    private final SimpleMenuItem[] tileItems;
+    private final LongKeyMap<ItemStack> renderCache;
+    private int cacheCapacity;
+    private int viewX;
+    private int viewY;
+    private ItemStack emptyStack;
+    private ItemStack leftStack;
+    private ItemStack upStack;
+    private ItemStack downStack;
+    private ItemStack rightStack;
+    private ItemStack closeStack;
+
+    /**
+     * Creates a new ViewportMenu.
+     *
+     * @param title        the menu title
+     * @param rows         the number of viewport rows (the control row will be added)
+     * @param player       the player this menu is for
+     * @param eventManager the event manager for firing events
+     * @param plugin       the plugin instance
+     * @param board        the board to show
+     * @param renderer     creates the item stack of a tile
+     */
+    public ViewportMenu(Component title, int rows, Player player, MenuEventManager eventManager, Plugin plugin,
+                        TileBoard<T> board, TileRenderer<T> renderer) {
+        super(title, calculateTotalSize(rows), player, eventManager, plugin);
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null");
+        }
+        if (renderer == null) {
+            throw new IllegalArgumentException("Renderer cannot be null");
+        }
+        this.board = board;
+        this.renderer = renderer;
+        this.viewRows = rows;
+        this.viewSize = rows * 9;
+        this.tileItems = new SimpleMenuItem[viewSize];
+        this.renderCache = new LongKeyMap<>(DEFAULT_CACHE_CAPACITY);
+        this.cacheCapacity = DEFAULT_CACHE_CAPACITY;
+        this.emptyStack = namedItem(Material.GRAY_STAINED_GLASS_PANE, null);
+        this.leftStack = namedItem(Material.ARROW, "&eLeft");
+        this.upStack = namedItem(Material.ARROW, "&eUp");
+        this.downStack = namedItem(Material.ARROW, "&eDown");
+        this.rightStack = namedItem(Material.ARROW, "&eRight");
+        this.closeStack = namedItem(Material.BARRIER, "&cClose");
+    }
+
+    private static int calculateTotalSize(int viewRows) {
+        if (viewRows < 1 || viewRows > 5) {
+            throw new IllegalArgumentException("Viewport rows must be between 1 and 5");
+        }
+        return (viewRows + 1) * 9;
+    }
+
+    private static ItemStack namedItem(Material material, String name) {
+        ItemStack stack = new ItemStack(material);
+        stack.editMeta(meta -> meta.displayName(name != null
+                ? LegacyComponentSerializer.legacyAmpersand().deserialize(name)
+                : Component.empty()));
+        return stack;
+    }
+
+    /**
+     * Sets the items of the control row. Null hides a control.
+     *
+     * @param left  the pan left item
+     * @param up    the pan up item
+     * @param down  the pan down item
+     * @param right the pan right item
+     * @param close the close item
+     */
+    public void setControlItems(ItemStack left, ItemStack up, ItemStack down, ItemStack right, ItemStack close) {
+        this.leftStack = left;
+        this.upStack = up;
+        this.downStack = down;
+        this.rightStack = right;
+        this.closeStack = close;
+        if (open) {
+            drawControls();
+        }
+    }
+
+    /**
+     * Sets the item shown for empty tiles and for slots outside the board.
+     *
+     * @param emptyStack the item, or null to leave those slots empty
+     */
+    public void setEmptyItem(ItemStack emptyStack) {
+        this.emptyStack = emptyStack;
+        refresh();
+    }
+
+    /**
+     * Sets how many rendered tiles are cached. The cache is emptied when it is full.
+     *
+     * @param cacheCapacity the maximum number of cached tiles
+     */
+    public void setCacheCapacity(int cacheCapacity) {
+        if (cacheCapacity < viewSize) {
+            throw new IllegalArgumentException("Cache capacity must be at least the viewport size (" + viewSize + ")");
+        }
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    public TileBoard<T> getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the column of the board shown in the leftmost viewport column.
+     *
+     * @return the column
+     */
+    public int getViewX() {
+        return viewX;
+    }
+
+    /**
+     * Gets the row of the board shown in the top viewport row.
+     *
+     * @return the row
+     */
+    public int getViewY() {
+        return viewY;
+    }
+
+    /**
+     * Gets the board column of the tile shown in a slot.
+     *
+     * @param slot the slot
+     * @return the column, or -1 if the slot is not part of the viewport or outside the board
+     */
+    public int getTileX(int slot) {
+        if (slot < 0 || slot >= viewSize) {
+            return -1;
+        }
+        int x = viewX + slot % 9;
+        return board.contains(x, viewY + slot / 9) ? x : -1;
+    }
+
+    /**
+     * Gets the board row of the tile shown in a slot.
+     *
+     * @param slot the slot
+     * @return the row, or -1 if the slot is not part of the viewport or outside the board
+     */
+    public int getTileY(int slot) {
+        if (slot < 0 || slot >= viewSize) {
+            return -1;
+        }
+        int y = viewY + slot / 9;
+        return board.contains(viewX + slot % 9, y) ? y : -1;
+    }
+
+    /**
+     * Moves the viewport. The viewport stays within the board.
+     *
+     * @param dx the number of columns to move, negative to move left
+     * @param dy the number of rows to move, negative to move up
+     */
+    public void pan(int dx, int dy) {
+        moveTo(viewX + dx, viewY + dy);
+    }
+
+    /**
+     * Moves the viewport so a tile is in the center.
+     *
+     * @param x the column
+     * @param y the row
+     */
+    public void centerOn(int x, int y) {
+        moveTo(x - 4, y - viewRows / 2);
+    }
+
+    /**
+     * Moves the top left corner of the viewport. The viewport stays within the board.
+     *
+     * @param x the column of the leftmost viewport column
+     * @param y the row of the top viewport row
+     */
+    public void moveTo(int x, int y) {
+        int clampedX = Math.max(0, Math.min(x, board.getWidth() - 9));
+        int clampedY = Math.max(0, Math.min(y, board.getHeight() - viewRows));
+        if (clampedX == viewX && clampedY == viewY) {
+            return;
+        }
+        viewX = clampedX;
+        viewY = clampedY;
+        refresh();
+    }
+
+    /**
+     * Updates the viewport after tiles of the board changed.
+     * Only tiles whose version changed are rendered again, and only slots showing a different item are written.
+     */
+    public void refresh() {
+        long changed = 0;
+        for (int slot = 0; slot < viewSize; slot++) {
+            ItemStack stack = tileStack(viewX + slot % 9, viewY + slot / 9);
+            SimpleMenuItem item = tileItems[slot];
+            if (item == null) {
+                tileItems[slot] = new SimpleMenuItem(slot, stack, false);
+                addItem(tileItems[slot]);
+            } else if (item.getItemStack() != stack) {
+                item.setItemStack(stack);
+                changed |= 1L << slot;
+            }
+        }
+        // Recompose only the tiles that show a different stack
+        invalidateSlots(changed);
+    }
+
+    /**
+     * Gets the item stack of a position, from the render cache if the tile did not change.
+     */
+    private ItemStack tileStack(int x, int y) {
+        long version = board.getVersion(x, y);
+        if (version == 0) {
+            return emptyStack;
+        }
+
+        ItemStack cached = renderCache.get(version);
+        if (cached != null) {
+            return cached;
+        }
+        if (renderCache.size() >= cacheCapacity) {
+            renderCache.clear();
+        }
+        ItemStack rendered = renderer.render(x, y, board.get(x, y));
+        if (rendered == null) {
+            rendered = emptyStack != null ? emptyStack : new ItemStack(Material.AIR);
+        }
+        renderCache.put(version, rendered);
+        return rendered;
+    }
+
+    /**
+     * Draws the control row at the bottom.
+     */
+    private void drawControls() {
+        int controlRow = viewSize;
+        ItemStack fill = namedItem(Material.BLACK_STAINED_GLASS_PANE, null);
+        ItemStack[] controls = {null, null, leftStack, upStack, closeStack, downStack, rightStack, null, null};
+
+        // Back button if a previous menu exists, like in pageable menus
+        if (context != null && (session != null && session.getPreviousSession().isPresent()
+                || context.get("previous-session").isPresent())) {
+            controls[1] = namedItem(Material.OAK_DOOR, "&eBack");
+            context.put("back-button-slot", controlRow + 1);
+        }
+        if (closeStack != null && context != null) {
+            context.put("close-button-slot", controlRow + 4);
+        }
+
+        for (int column = 0; column < 9; column++) {
+            addItem(RenderLayer.CONTROLS, new SimpleMenuItem(controlRow + column, controls[column] != null ? controls[column] : fill, false));
+        }
+    }
+
+    @Override
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        int column = event.getSlot() - viewSize;
+        boolean ours = event.getInventory().equals(getInventory()) && event.getRawSlot() < getInventory().getSize()
+                && event.getWhoClicked() instanceof Player clickedPlayer && clickedPlayer.equals(getPlayer());
+        if (!ours || column < 2 || column > 6 || column == 4) {
+            // Tiles, close and back buttons are handled like in any other menu
+            super.onInventoryClick(event);
+            return;
+        }
+
+        event.setCancelled(true);
+        if (!admitClick(event.getSlot())) {
+            return;
+        }
+
+        // Shift-click pans a whole viewport at once
+        int step = event.isShiftClick() ? (column == 3 || column == 5 ? viewRows : 9) : 1;
+        if (column == 2 && leftStack != null) {
+            pan(-step, 0);
+        } else if (column == 3 && upStack != null) {
+            pan(0, -step);
+        } else if (column == 5 && downStack != null) {
+            pan(0, step);
+        } else if (column == 6 && rightStack != null) {
+            pan(step, 0);
+        }
+    }
+
+    @Override
+    public void open() {
+        // Fill the viewport and controls before opening; the first draw writes every slot
+        refresh();
+        drawControls();
+        super.open();
+    }
+
+    /**
+     * Creates the item stack of a tile.
+     *
+     * @param <T> the tile type
+     */
+    @FunctionalInterface
+    public interface TileRenderer<T> {
+        /**
+         * Renders a tile. Called only when the tile is not cached, i.e. the first time it is shown after it changed.
+         *
+         * @param x    the column
+         * @param y    the row
+         * @param tile the tile
+         * @return the item stack, or null to show the empty item
+         */
+        ItemStack render(int x, int y, T tile);
+    }
+}
@@ -0,0 +1,302 @@
+package be.mathijsfollon.betterInterfaces.metrics;
+
+import be.mathijsfollon.betterInterfaces.api.MenuOpenPriority;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Menu statistics of a menu service.
+ *
+ * All counters are {@link LongAdder}s in concurrent maps, so recording from the main thread never
+ * contends with a scrape, and a scrape never blocks the main thread. Values read during a scrape are
+ * not a single atomic snapshot, which is fine for monitoring.
+ */
+public class MenuMetrics {
+    private static final String UNKNOWN_MENU = "unknown";
+
+    /**
+     * Upper bounds of the handler latency histogram buckets, in nanoseconds.
+     */
+    private static final long[] LATENCY_BUCKETS_NANOS = {
+            10_000L, 50_000L, 100_000L, 500_000L, 1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L, 100_000_000L
+    };
+
+    private final Map<String, MenuCounters> menus = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> handlerLatency = new ConcurrentHashMap<>();
+    private final LongAdder registeredMenus = new LongAdder();
+    private final LongAdder openMenus = new LongAdder();
+    private final LongAdder[] queuedOpens = adders(MenuOpenPriority.values().length);
+    private final LongAdder[] admittedOpens = adders(MenuOpenPriority.values().length);
+    private final LongAdder exhaustedOpenBudgets = new LongAdder();
+
+    /**
+     * Records a menu instance that registered itself as a Bukkit listener.
+     */
+    public void menuCreated() {
+        registeredMenus.increment();
+    }
+
+    /**
+     * Records a menu becoming visible.
+     *
+     * @param menuId the menu id (can be null)
+     */
+    public void menuOpened(String menuId) {
+        openMenus.increment();
+        MenuCounters counters = counters(menuId);
+        counters.opens.increment();
+        counters.open.increment();
+    }
+
+    /**
+     * Records a menu being closed.
+     *
+     * @param menuId the menu id (can be null)
+     */
+    public void menuClosed(String menuId) {
+        openMenus.decrement();
+        MenuCounters counters = counters(menuId);
+        counters.closes.increment();
+        counters.open.decrement();
+    }
+
+    /**
+     * Records an admitted click.
+     *
+     * @param menuId the menu id (can be null)
+     */
+    public void click(String menuId) {
+        counters(menuId).clicks.increment();
+    }
+
+    /**
+     * Records inventory slot writes done while rendering a menu.
+     *
+     * @param menuId the menu id (can be null)
+     * @param slots  the number of slots written
+     */
+    public void slotWrites(String menuId, int slots) {
+        if (slots > 0) {
+            counters(menuId).slotWrites.add(slots);
+        }
+    }
+
+    /**
+     * Records the duration of a single handler invocation.
+     *
+     * @param eventType the event type the handler received
+     * @param nanos     the duration in nanoseconds
+     */
+    public void handlerInvoked(String eventType, long nanos) {
+        Histogram histogram = handlerLatency.get(eventType);
+        if (histogram == null) {
+            histogram = handlerLatency.computeIfAbsent(eventType, k -> new Histogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records a menu open waiting for admission.
+     *
+     * @param priority the priority of the open
+     */
+    public void openQueued(MenuOpenPriority priority) {
+        queuedOpens[priority.ordinal()].increment();
+    }
+
+    /**
+     * Records a queued menu open leaving the queue, whether it was opened or its player left.
+     *
+     * @param priority the priority of the open
+     */
+    public void openAdmitted(MenuOpenPriority priority) {
+        queuedOpens[priority.ordinal()].decrement();
+        admittedOpens[priority.ordinal()].increment();
+    }
+
+    /**
+     * Records a tick whose open budget ran out while opens were still queued.
+     */
+    public void openBudgetExhausted() {
+        exhaustedOpenBudgets.increment();
+    }
+
+    /**
+     * Gets the number of menu opens waiting for admission.
+     *
+     * @param priority the priority of the opens
+     * @return the queue depth
+     */
+    public long getQueuedOpens(MenuOpenPriority priority) {
+        return queuedOpens[priority.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of menus that are currently open.
+     *
+     * @return the number of open menus
+     */
+    public long getOpenMenus() {
+        return openMenus.sum();
+    }
+
+    /**
+     * Gets the number of menus that are closed but still registered as Bukkit listeners.
+     * Menus stay registered after closing so they can be reopened, but a steadily growing value
+     * means menus are created and never reused.
+     *
+     * @return the number of leaked menus
+     */
+    public long getLeakedMenus() {
+        return Math.max(0, registeredMenus.sum() - openMenus.sum());
+    }
+
+    private MenuCounters counters(String menuId) {
+        String key = menuId != null ? menuId : UNKNOWN_MENU;
+        MenuCounters counters = menus.get(key);
+        if (counters == null) {
+            counters = menus.computeIfAbsent(key, k -> new MenuCounters());
+        }
+        return counters;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     *
+     * @param out the output to write to
+     */
+    public void writePrometheus(StringBuilder out) {
+        // Sort by label so consecutive scrapes list series in the same order
+        Map<String, MenuCounters> sortedMenus = new TreeMap<>(menus);
+
+        gauge(out, "betterinterfaces_menus_open", "Menus that are currently open", getOpenMenus());
+        gauge(out, "betterinterfaces_menus_leaked", "Closed menus still registered as Bukkit listeners", getLeakedMenus());
+
+        header(out, "betterinterfaces_menu_open", "gauge", "Open menus per menu id");
+        sortedMenus.forEach((id, counters) -> sample(out, "betterinterfaces_menu_open", "menu", id, counters.open.sum()));
+        header(out, "betterinterfaces_menu_opens_total", "counter", "Menu opens per menu id");
+        sortedMenus.forEach((id, counters) -> sample(out, "betterinterfaces_menu_opens_total", "menu", id, counters.opens.sum()));
+        header(out, "betterinterfaces_menu_closes_total", "counter", "Menu closes per menu id");
+        sortedMenus.forEach((id, counters) -> sample(out, "betterinterfaces_menu_closes_total", "menu", id, counters.closes.sum()));
+        header(out, "betterinterfaces_menu_clicks_total", "counter", "Admitted menu clicks per menu id");
+        sortedMenus.forEach((id, counters) -> sample(out, "betterinterfaces_menu_clicks_total", "menu", id, counters.clicks.sum()));
+        header(out, "betterinterfaces_menu_slot_writes_total", "counter", "Inventory slot writes while rendering, per menu id");
+        sortedMenus.forEach((id, counters) -> sample(out, "betterinterfaces_menu_slot_writes_total", "menu", id, counters.slotWrites.sum()));
+
+        header(out, "betterinterfaces_open_queue_depth", "gauge", "Menu opens waiting for admission per priority");
+        for (MenuOpenPriority priority : MenuOpenPriority.values()) {
+            sample(out, "betterinterfaces_open_queue_depth", "priority", label(priority), queuedOpens[priority.ordinal()].sum());
+        }
+        header(out, "betterinterfaces_open_admitted_total", "counter", "Queued menu opens admitted per priority");
+        for (MenuOpenPriority priority : MenuOpenPriority.values()) {
+            sample(out, "betterinterfaces_open_admitted_total", "priority", label(priority), admittedOpens[priority.ordinal()].sum());
+        }
+        counter(out, "betterinterfaces_open_budget_exhausted_total", "Ticks whose menu open budget ran out with opens still queued",
+                exhaustedOpenBudgets.sum());
+
+        header(out, "betterinterfaces_handler_duration_seconds", "histogram", "Duration of menu event handler invocations");
+        new TreeMap<>(handlerLatency).forEach((eventType, histogram) -> histogram.write(out, eventType));
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String label(MenuOpenPriority priority) {
+        return priority.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        out.append(name).append('{').append(label).append("=\"");
+        escape(out, value);
+        out.append("\"} ").append(sample).append('\n');
+    }
+
+    private static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Counters of a single menu id.
+     */
+    private static final class MenuCounters {
+        private final LongAdder open = new LongAdder();
+        private final LongAdder opens = new LongAdder();
+        private final LongAdder closes = new LongAdder();
+        private final LongAdder clicks = new LongAdder();
+        private final LongAdder slotWrites = new LongAdder();
+    }
+
+    /**
+     * Fixed-bucket latency histogram. Buckets are stored non-cumulative and summed up when scraped.
+     */
+    private static final class Histogram {
+        private final LongAdder[] buckets;
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram() {
+            this.buckets = new LongAdder[LATENCY_BUCKETS_NANOS.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_NANOS.length && nanos > LATENCY_BUCKETS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            sumNanos.add(nanos);
+        }
+
+        private void write(StringBuilder out, String eventType) {
+            String name = "betterinterfaces_handler_duration_seconds";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String bound = i < LATENCY_BUCKETS_NANOS.length ? Double.toString(LATENCY_BUCKETS_NANOS[i] / 1e9) : "+Inf";
+                out.append(name).append("_bucket{event=\"");
+                escape(out, eventType);
+                out.append("\",le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum{event=\"");
+            escape(out, eventType);
+            out.append("\"} ").append(sumNanos.sum() / 1e9).append('\n');
+            out.append(name).append("_count{event=\"");
+            escape(out, eventType);
+            out.append("\"} ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package be.mathijsfollon.betterInterfaces.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Scheduler backend for Paper and Bukkit, where the main thread owns every player.
+ * Tasks do not depend on the player they were scheduled for, so work shared by all players can be scheduled
+ * through any of them.
+ */
+final class BukkitMenuScheduler implements MenuScheduler {
+    private final Plugin plugin;
+
+    BukkitMenuScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void run(Player player, Runnable task) {
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public void run(Player player, Runnable task, Runnable retired) {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                task.run();
+            } else {
+                retired.run();
+            }
+        });
+    }
+
+    @Override
+    public void runLater(Player player, Runnable task, long delayTicks) {
+        Bukkit.getScheduler().runTaskLater(plugin, task, delayTicks);
+    }
+
+    @Override
+    public Task runTimer(Player player, Runnable task, long delayTicks, long periodTicks) {
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        return new Task() {
+            @Override
+            public void cancel() {
+                scheduled.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return scheduled.isCancelled();
+            }
+        };
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Player player) {
+        return Bukkit.isPrimaryThread();
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+}
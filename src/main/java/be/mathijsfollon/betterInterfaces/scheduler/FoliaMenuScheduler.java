@@ -0,0 +1,75 @@
+package be.mathijsfollon.betterInterfaces.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Scheduler backend for Folia, running menu work on the entity scheduler of the player.
+ * The entity scheduler follows the player across regions, and drops tasks of players who left.
+ */
+final class FoliaMenuScheduler implements MenuScheduler {
+    private final Plugin plugin;
+
+    FoliaMenuScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void run(Player player, Runnable task) {
+        player.getScheduler().run(plugin, scheduled -> task.run(), null);
+    }
+
+    @Override
+    public void run(Player player, Runnable task, Runnable retired) {
+        if (player.getScheduler().run(plugin, scheduled -> task.run(), retired) == null) {
+            // The player was already removed, the scheduler does not call the retired callback then
+            retired.run();
+        }
+    }
+
+    @Override
+    public void runLater(Player player, Runnable task, long delayTicks) {
+        player.getScheduler().runDelayed(plugin, scheduled -> task.run(), null, delayTicks);
+    }
+
+    @Override
+    public Task runTimer(Player player, Runnable task, long delayTicks, long periodTicks) {
+        ScheduledTask scheduled = player.getScheduler().runAtFixedRate(plugin, handle -> task.run(), null, delayTicks, periodTicks);
+        return new Task() {
+            @Override
+            public void cancel() {
+                if (scheduled != null) {
+                    scheduled.cancel();
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                // Null when the player was already removed, so the task never ran
+                return scheduled == null || scheduled.isCancelled();
+            }
+        };
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        Bukkit.getGlobalRegionScheduler().run(plugin, scheduled -> task.run());
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getAsyncScheduler().runNow(plugin, scheduled -> task.run());
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Player player) {
+        return Bukkit.isOwnedByCurrentRegion(player);
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package be.mathijsfollon.betterInterfaces.scheduler;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Schedules menu work on the thread that owns a player.
+ *
+ * On Paper that is always the main thread. On Folia every player is owned by the thread of their region, so
+ * menu work for players in different regions runs in parallel. Menu code must not assume that work scheduled
+ * for two different players runs on the same thread when {@link #isRegionized()} is true.
+ */
+public interface MenuScheduler {
+    /**
+     * Gets the scheduler for a plugin, using the Folia backend when the server is regionized.
+     *
+     * @param plugin the plugin owning the scheduled work
+     * @return the scheduler
+     */
+    static MenuScheduler of(Plugin plugin) {
+        return Schedulers.SCHEDULERS.computeIfAbsent(plugin, owner -> Schedulers.FOLIA
+                ? new FoliaMenuScheduler(owner)
+                : new BukkitMenuScheduler(owner));
+    }
+
+    /**
+     * Runs a task on the next tick, on the thread owning the player.
+     * On a regionized server the task does not run if the player leaves before that.
+     *
+     * @param player the player the task works on
+     * @param task   the task
+     */
+    void run(Player player, Runnable task);
+
+    /**
+     * Runs a task on the next tick, on the thread owning the player, or the fallback if the task cannot run
+     * because the player left. Exactly one of the two runs.
+     *
+     * @param player  the player the task works on
+     * @param task    the task
+     * @param retired the fallback, run on an unspecified thread if the player left first
+     */
+    void run(Player player, Runnable task, Runnable retired);
+
+    /**
+     * Runs a task after a delay, on the thread owning the player.
+     * On a regionized server the task does not run if the player leaves before that.
+     *
+     * @param player     the player the task works on
+     * @param task       the task
+     * @param delayTicks the delay in ticks, at least 1
+     */
+    void runLater(Player player, Runnable task, long delayTicks);
+
+    /**
+     * Runs a task repeatedly on the thread owning the player, until it is cancelled.
+     * On a regionized server the task also stops when the player leaves.
+     *
+     * @param player      the player the task works on
+     * @param task        the task
+     * @param delayTicks  the delay before the first run in ticks, at least 1
+     * @param periodTicks the ticks between runs, at least 1
+     * @return the scheduled task
+     */
+    Task runTimer(Player player, Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task on the next tick, on the thread owning work that belongs to no player, e.g. replying to the console.
+     * On Paper that is the main thread, on Folia the global region thread.
+     *
+     * @param task the task
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Runs a task off the server threads, e.g. for file or database work.
+     * The task must not touch players, worlds or inventories.
+     *
+     * @param task the task
+     */
+    void runAsync(Runnable task);
+
+    /**
+     * Checks if the current thread owns the player, i.e. if menu work for the player can run right away.
+     *
+     * @param player the player
+     * @return true if the current thread may touch the player and their inventories
+     */
+    boolean isOwnedByCurrentThread(Player player);
+
+    /**
+     * Checks if players may be owned by different threads.
+     * Shared per-tick state, such as one timer ticking the menus of all players, must then be kept per player.
+     *
+     * @return true on a regionized server
+     */
+    boolean isRegionized();
+
+    /**
+     * A scheduled repeating task.
+     */
+    interface Task {
+        /**
+         * Cancels the task. Does nothing if it was already cancelled.
+         */
+        void cancel();
+
+        /**
+         * Checks if the task was cancelled, by {@link #cancel()}, by the server or because its player left.
+         *
+         * @return true if the task will not run again
+         */
+        boolean isCancelled();
+    }
+}
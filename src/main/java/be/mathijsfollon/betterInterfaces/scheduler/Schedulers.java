@@ -0,0 +1,26 @@
+package be.mathijsfollon.betterInterfaces.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-plugin schedulers and backend detection for {@link MenuScheduler#of(Plugin)}.
+ */
+final class Schedulers {
+    static final Map<Plugin, MenuScheduler> SCHEDULERS = new ConcurrentHashMap<>();
+    static final boolean FOLIA = isFolia();
+
+    private Schedulers() {
+    }
+
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
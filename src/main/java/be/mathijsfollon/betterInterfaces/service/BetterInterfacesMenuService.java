@@ -7,36 +7,99 @@ import be.mathijsfollon.betterInterfaces.api.events.MenuEventListener;
 import be.mathijsfollon.betterInterfaces.api.exceptions.MenuNotRegisteredException;
 import be.mathijsfollon.betterInterfaces.events.MenuOpenEvent;
 import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.menu.ClickThrottle;
 import be.mathijsfollon.betterInterfaces.menu.MenuSessionImpl;
+import be.mathijsfollon.betterInterfaces.metrics.MenuMetrics;
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
+import be.mathijsfollon.betterInterfaces.trace.MenuTracer;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class BetterInterfacesMenuService implements MenuService {
+    private static final int DEFAULT_TRACE_CAPACITY = 4096;
+
     private final MenuDefinitionStore menuStore;
     private final MenuEventManager eventManager;
+    private final ClickThrottle clickThrottle;
+    private final MenuMetrics metrics;
+    private final MenuTracer tracer;
+    private final OpenRequestQueue openRequests;
+    private final Plugin plugin;
 
     public BetterInterfacesMenuService() {
+        this(ClickThrottle.Settings.defaults());
+    }
+
+    public BetterInterfacesMenuService(ClickThrottle.Settings clickThrottleSettings) {
+        this(clickThrottleSettings, DEFAULT_TRACE_CAPACITY);
+    }
+
+    /**
+     * Creates a new BetterInterfacesMenuService.
+     *
+     * @param clickThrottleSettings the click throttle settings
+     * @param traceCapacity         the number of trace spans kept in memory
+     */
+    public BetterInterfacesMenuService(ClickThrottle.Settings clickThrottleSettings, int traceCapacity) {
+        this(null, clickThrottleSettings, traceCapacity);
+    }
+
+    /**
+     * Creates a new BetterInterfacesMenuService.
+     *
+     * @param plugin                the plugin scheduling menu opens requested from other threads, or null to use the
+     *                              plugin in the context of each open
+     * @param clickThrottleSettings the click throttle settings
+     * @param traceCapacity         the number of trace spans kept in memory
+     */
+    public BetterInterfacesMenuService(Plugin plugin, ClickThrottle.Settings clickThrottleSettings, int traceCapacity) {
+        this.plugin = plugin;
         menuStore = new MenuDefinitionStore();
-        eventManager = new MenuEventManagerImpl();
+        metrics = new MenuMetrics();
+        openRequests = new OpenRequestQueue(this::openRequested, metrics);
+        tracer = new MenuTracer(traceCapacity);
+        eventManager = new MenuEventManagerImpl(metrics, tracer);
+        clickThrottle = new ClickThrottle(clickThrottleSettings);
     }
 
     @Override
     public void registerMenu(MenuDefinition definition) {
-        menuStore.put(definition.getId(), definition);
-        
-        if (definition instanceof MenuEventListener listener) {
-            eventManager.registerListener(listener);
-        }
+        registerMenus(List.of(definition));
     }
 
+    /**
+     * Registers a batch of menu definitions.
+     * Registering a definition under an id that is already in use hot-reloads it: the whole batch is published
+     * in one copy-on-write swap, and listeners of replaced definitions are swapped out in one handler table rebuild.
+     * Open sessions keep the menu they were built from and migrate to the new definition the next time they open.
+     *
+     * @param definitions the definitions to register
+     */
     @Override
     public void registerMenus(List<MenuDefinition> definitions) {
+        Map<String, MenuDefinition> previous = menuStore.putAll(definitions);
+
+        List<MenuEventListener> removed = new ArrayList<>();
+        List<MenuEventListener> added = new ArrayList<>();
+        for (MenuDefinition old : previous.values()) {
+            if (!definitions.contains(old) && old instanceof MenuEventListener listener) {
+                removed.add(listener);
+            }
+        }
         for (MenuDefinition definition : definitions) {
-            registerMenu(definition);
+            if (previous.get(definition.getId()) != definition && definition instanceof MenuEventListener listener) {
+                added.add(listener);
+            }
         }
+
+        // Swap all handlers at once instead of rebuilding the tables once per definition
+        eventManager.replaceListeners(removed, added);
     }
 
     @Override
@@ -59,38 +122,135 @@ public class BetterInterfacesMenuService implements MenuService {
         return openMenu(player, id, ctx, null);
     }
 
+    /**
+     * Opens a menu. Must be called on the thread owning the player, use
+     * {@link #openMenuAsync(Player, String, MenuOpenContextStore, MenuSession)} from other threads.
+     *
+     * @throws IllegalStateException if called from a thread that does not own the player
+     */
     @Override
     public MenuSession openMenu(Player player, String id, MenuOpenContextStore ctx, MenuSession currentSession) throws MenuNotRegisteredException {
-        Optional<MenuDefinition> definition = menuStore.get(id);
-        if (definition.isEmpty()) {
+        MenuScheduler scheduler = schedulerFor(ctx);
+        if (scheduler != null && !scheduler.isOwnedByCurrentThread(player)) {
+            throw new IllegalStateException("Menu " + id + " must be opened on the thread owning the player, use openMenuAsync from other threads");
+        }
+
+        Optional<MenuDefinitionStore.Entry> entry = menuStore.getEntry(id);
+        if (entry.isEmpty()) {
             throw new MenuNotRegisteredException(id);
         }
 
-        MenuDefinition menuDef = definition.get();
+        MenuDefinition menuDef = entry.get().definition();
         ctx.put("player", player);
         ctx.put("menu-service", this); // Add service to context for menu creation
+        ctx.put("menu-id", id);
         ctx.setMenuDefinitionClass(menuDef.getClass()); // Store the MenuDefinition class
         
         // Store previous session in context for back button support
         if (currentSession != null) {
             ctx.put("previous-session", currentSession);
+
+            // Nested menus continue the trace of the menu they were opened from
+            String traceId = MenuTracer.traceId(currentSession.getContext());
+            if (traceId != null) {
+                ctx.put(MenuTracer.TRACE_ID_KEY, traceId);
+            }
         }
+        tracer.trace(ctx);
 
         CompletableFuture<MenuOpenEvent> future = new CompletableFuture<>();
 
+        long traceStart = tracer.start();
         Menu menu = menuDef.create(ctx, future);
+        tracer.record(ctx, "create", traceStart);
 
         // Create session with previous session for navigation
         MenuSessionImpl session = new MenuSessionImpl(menu, future, player, ctx, eventManager);
         if (currentSession != null) {
             session.setPreviousSession(currentSession);
         }
+        session.pinDefinition(id, entry.get().version(), this::migrateSession);
 
         session.open();
 
         return session;
     }
 
+    /**
+     * Opens a menu from any thread.
+     * Interactive opens on the thread owning the player open right away. All other opens are queued and admitted
+     * on a later tick within the open budget, see {@link OpenRequestQueue}.
+     *
+     * @return a future completed with the session once the menu is open, or completed exceptionally if the
+     *         arguments are invalid, the menu is not registered, could not be created or the player left first
+     */
+    @Override
+    public CompletableFuture<MenuSession> openMenuAsync(Player player, String id, MenuOpenContextStore ctx, MenuSession currentSession,
+                                                        MenuOpenPriority priority) {
+        // Invalid arguments fail the future, so callers on other threads see them where they handle failures
+        if (player == null || ctx == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Player and context cannot be null"));
+        }
+        if (priority == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Priority cannot be null"));
+        }
+        MenuScheduler scheduler = schedulerFor(ctx);
+        if (scheduler == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Plugin must be set in MenuOpenContextStore"));
+        }
+
+        OpenRequestQueue.OpenRequest request =
+                new OpenRequestQueue.OpenRequest(player, id, ctx, currentSession, priority, new CompletableFuture<>());
+        if (priority == MenuOpenPriority.INTERACTIVE && scheduler.isOwnedByCurrentThread(player)) {
+            openRequested(request);
+        } else {
+            openRequests.submit(scheduler, request);
+        }
+        return request.future();
+    }
+
+    private void openRequested(OpenRequestQueue.OpenRequest request) {
+        try {
+            request.future().complete(openMenu(request.player(), request.id(), request.ctx(), request.currentSession()));
+        } catch (RuntimeException e) {
+            request.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Gets the scheduler of the service's plugin, or of the plugin in the context if the service has none.
+     *
+     * @param ctx the menu open context
+     * @return the scheduler, or null if no plugin is known
+     */
+    private MenuScheduler schedulerFor(MenuOpenContextStore ctx) {
+        Plugin owner = plugin != null ? plugin : ctx.get("plugin", Plugin.class).orElse(null);
+        return owner != null ? MenuScheduler.of(owner) : null;
+    }
+
+    /**
+     * Rebuilds the menu of a session whose definition was reloaded since the session was created.
+     *
+     * @param session the session about to be opened
+     * @return the rebuilt menu, or null if the session's definition is still current (or was unregistered)
+     */
+    private Menu migrateSession(MenuSessionImpl session, CompletableFuture<MenuOpenEvent> result) {
+        Optional<MenuDefinitionStore.Entry> entry = menuStore.getEntry(session.getMenuId());
+        if (entry.isEmpty() || entry.get().version() == session.getDefinitionVersion()) {
+            return null;
+        }
+
+        MenuDefinition menuDef = entry.get().definition();
+        MenuOpenContextStore ctx = session.getContext();
+        ctx.setMenuDefinitionClass(menuDef.getClass());
+        // Button slots belong to the old layout; the new definition stores its own while it builds the menu
+        ctx.remove("close-button-slot");
+        ctx.remove("back-button-slot");
+        Menu menu = menuDef.create(ctx, result);
+        session.pinDefinition(session.getMenuId(), entry.get().version(), this::migrateSession);
+        return menu;
+    }
+
     /**
      * Gets the event manager.
      *
@@ -100,4 +260,44 @@ public class BetterInterfacesMenuService implements MenuService {
     public MenuEventManager getEventManager() {
         return eventManager;
     }
+
+    /**
+     * Gets the click throttle.
+     *
+     * @return the click throttle
+     */
+    @Override
+    public ClickThrottle getClickThrottle() {
+        return clickThrottle;
+    }
+
+    /**
+     * Gets the menu metrics.
+     *
+     * @return the menu metrics
+     */
+    @Override
+    public MenuMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the queue admitting menu opens requested through openMenuAsync.
+     *
+     * @return the open queue
+     */
+    @Override
+    public MenuOpenQueue getOpenQueue() {
+        return openRequests;
+    }
+
+    /**
+     * Gets the interaction tracer.
+     *
+     * @return the tracer
+     */
+    @Override
+    public MenuTracer getTracer() {
+        return tracer;
+    }
 }
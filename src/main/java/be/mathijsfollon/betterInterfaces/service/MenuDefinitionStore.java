@@ -1,43 +1,138 @@
 package be.mathijsfollon.betterInterfaces.service;
 
-import be.mathijsfollon.betterInterfaces.api.Menu;
 import be.mathijsfollon.betterInterfaces.api.MenuDefinition;
 import be.mathijsfollon.betterInterfaces.api.util.Store;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Versioned store of menu definitions.
+ *
+ * The store is an immutable snapshot that is replaced copy-on-write and published with a single volatile write.
+ * Readers always see one consistent snapshot, and a batch of definitions becomes visible all at once.
+ * Every entry remembers the snapshot version it was published in, so sessions can tell whether
+ * the definition they were built from has been reloaded since.
+ */
 public class MenuDefinitionStore implements Store<String, MenuDefinition> {
 
-    private final Map<String, MenuDefinition> menus;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
 
     public MenuDefinitionStore() {
-        this.menus = new ConcurrentHashMap<>();
+        this.snapshot = new Snapshot(0, Map.of());
     }
 
     @Override
     public void put(String key, MenuDefinition value) {
-        menus.put(key, value);
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            long version = current.version() + 1;
+            Map<String, Entry> entries = new HashMap<>(current.entries());
+            entries.put(key, new Entry(value, version));
+            snapshot = new Snapshot(version, Map.copyOf(entries));
+        }
+    }
+
+    /**
+     * Puts a batch of definitions, keyed by their id, in one publish.
+     * Definitions that are already stored under their id (the same instance) keep their version, so sessions built from them
+     * are not rebuilt.
+     *
+     * @param definitions the definitions to put
+     * @return the definitions that were previously stored under the same ids, keyed by id
+     */
+    public Map<String, MenuDefinition> putAll(Collection<? extends MenuDefinition> definitions) {
+        Map<String, MenuDefinition> replaced = new HashMap<>();
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            long version = current.version() + 1;
+            Map<String, Entry> entries = new HashMap<>(current.entries());
+            boolean changed = false;
+            for (MenuDefinition definition : definitions) {
+                Entry previous = entries.get(definition.getId());
+                if (previous != null) {
+                    replaced.put(definition.getId(), previous.definition());
+                    if (previous.definition() == definition) {
+                        continue;
+                    }
+                }
+                entries.put(definition.getId(), new Entry(definition, version));
+                changed = true;
+            }
+            if (changed) {
+                snapshot = new Snapshot(version, Map.copyOf(entries));
+            }
+        }
+        return replaced;
     }
 
     @Override
     public Optional<MenuDefinition> get(String key) {
-        return Optional.ofNullable(menus.get(key));
+        return getEntry(key).map(Entry::definition);
+    }
+
+    /**
+     * Gets a definition together with the version it was published in.
+     *
+     * @param key the menu id
+     * @return the entry, if present
+     */
+    public Optional<Entry> getEntry(String key) {
+        return Optional.ofNullable(snapshot.entries().get(key));
+    }
+
+    /**
+     * Gets the current snapshot.
+     *
+     * @return the snapshot
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
     }
 
     @Override
     public Optional<MenuDefinition> remove(String key) {
-        return Optional.ofNullable(menus.remove(key));
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Entry removed = current.entries().get(key);
+            if (removed == null) {
+                return Optional.empty();
+            }
+            Map<String, Entry> entries = new HashMap<>(current.entries());
+            entries.remove(key);
+            snapshot = new Snapshot(current.version() + 1, Map.copyOf(entries));
+            return Optional.of(removed.definition());
+        }
     }
 
     @Override
     public boolean contains(String key) {
-        return menus.containsKey(key);
+        return snapshot.entries().containsKey(key);
     }
 
     @Override
     public void clear() {
-        menus.clear();
+        synchronized (writeLock) {
+            snapshot = new Snapshot(snapshot.version() + 1, Map.of());
+        }
     }
+
+    /**
+     * A definition and the store version it was published in.
+     *
+     * @param definition the menu definition
+     * @param version    the store version that published this definition
+     */
+    public record Entry(MenuDefinition definition, long version) {}
+
+    /**
+     * Immutable view of all definitions at one version.
+     *
+     * @param version the store version
+     * @param entries the entries keyed by menu id
+     */
+    public record Snapshot(long version, Map<String, Entry> entries) {}
 }
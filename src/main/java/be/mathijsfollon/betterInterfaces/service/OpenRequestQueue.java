@@ -0,0 +1,190 @@
+package be.mathijsfollon.betterInterfaces.service;
+
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenQueue;
+import be.mathijsfollon.betterInterfaces.api.MenuOpenPriority;
+import be.mathijsfollon.betterInterfaces.api.MenuSession;
+import be.mathijsfollon.betterInterfaces.metrics.MenuMetrics;
+import be.mathijsfollon.betterInterfaces.scheduler.MenuScheduler;
+import org.bukkit.entity.Player;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Admits queued menu opens on the thread owning the player, within a time budget per tick.
+ *
+ * Requests are added to lock-free queues, one per {@link MenuOpenPriority}, by any number of threads, and drained
+ * by a single task on the main thread. Every tick the drain opens interactive requests first, then automatic ones,
+ * until the budget is spent; the rest wait for the next tick in the order they came in. A drain always opens at
+ * least one request, and at least one automatic request if any is waiting, so no request waits forever.
+ * An open storm, e.g. hundreds of players rejoining after a restart, is spread over as many ticks as it needs.
+ *
+ * On a regionized server there is no single thread to drain on; every request is scheduled on its player's
+ * region thread instead, and the budget does not apply.
+ */
+final class OpenRequestQueue implements MenuOpenQueue {
+    private static final MenuOpenPriority[] PRIORITIES = MenuOpenPriority.values();
+
+    private final Queue<OpenRequest>[] queues;
+    private final AtomicBoolean drainScheduled;
+    private final Consumer<OpenRequest> opener;
+    private final MenuMetrics metrics;
+    private volatile long budgetNanos;
+
+    /**
+     * Creates a new OpenRequestQueue.
+     *
+     * @param opener  opens a request on the thread owning its player
+     * @param metrics the metrics recording the queue depth
+     */
+    @SuppressWarnings("unchecked")
+    OpenRequestQueue(Consumer<OpenRequest> opener, MenuMetrics metrics) {
+        this.queues = new Queue[PRIORITIES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.drainScheduled = new AtomicBoolean();
+        this.opener = opener;
+        this.metrics = metrics;
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(DEFAULT_BUDGET_MICROS);
+    }
+
+    @Override
+    public void setBudgetMicros(long micros) {
+        if (micros < 0) {
+            throw new IllegalArgumentException("Budget cannot be negative");
+        }
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    @Override
+    public long getBudgetMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(budgetNanos);
+    }
+
+    @Override
+    public long pending() {
+        // Counted by the metrics, which also see opens waiting on a player's region thread
+        long pending = 0;
+        for (MenuOpenPriority priority : PRIORITIES) {
+            pending += metrics.getQueuedOpens(priority);
+        }
+        return pending;
+    }
+
+    /**
+     * Queues a request to be opened on a later tick. Can be called from any thread.
+     *
+     * @param scheduler the scheduler of the plugin opening the menu
+     * @param request   the request
+     */
+    void submit(MenuScheduler scheduler, OpenRequest request) {
+        metrics.openQueued(request.priority());
+        if (scheduler.isRegionized()) {
+            scheduler.run(request.player(), () -> admit(request), () -> {
+                metrics.openAdmitted(request.priority());
+                request.playerLeft();
+            });
+            return;
+        }
+
+        queues[request.priority().ordinal()].offer(request);
+        // While a drain is scheduled or running it picks up the request; it reschedules itself if needed
+        if (drainScheduled.compareAndSet(false, true)) {
+            scheduler.run(request.player(), () -> drain(scheduler));
+        }
+    }
+
+    private void drain(MenuScheduler scheduler) {
+        long budget = budgetNanos;
+        long start = System.nanoTime();
+        int opened = 0;
+        boolean automaticOpened = false;
+
+        while (true) {
+            boolean withinBudget = budget == 0 || opened == 0 || System.nanoTime() - start < budget;
+            OpenRequest request = null;
+            if (withinBudget) {
+                for (Queue<OpenRequest> queue : queues) {
+                    if ((request = queue.poll()) != null) {
+                        break;
+                    }
+                }
+            } else if (!automaticOpened) {
+                // Interactive opens used up the budget; still let one automatic open through so they never starve
+                request = queues[MenuOpenPriority.AUTOMATIC.ordinal()].poll();
+            }
+            if (request == null) {
+                break;
+            }
+
+            if (request.priority() == MenuOpenPriority.AUTOMATIC) {
+                automaticOpened = true;
+            }
+            opened++;
+            admit(request);
+        }
+
+        OpenRequest next = peek();
+        if (next != null) {
+            metrics.openBudgetExhausted();
+            scheduler.run(next.player(), () -> drain(scheduler));
+            return;
+        }
+
+        drainScheduled.set(false);
+        // A request offered after the last poll saw the flag still set and did not schedule a drain
+        next = peek();
+        if (next != null && drainScheduled.compareAndSet(false, true)) {
+            scheduler.run(next.player(), () -> drain(scheduler));
+        }
+    }
+
+    private OpenRequest peek() {
+        for (Queue<OpenRequest> queue : queues) {
+            OpenRequest request = queue.peek();
+            if (request != null) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    private void admit(OpenRequest request) {
+        metrics.openAdmitted(request.priority());
+        try {
+            if (request.player().isOnline()) {
+                opener.accept(request);
+            } else {
+                request.playerLeft();
+            }
+        } catch (RuntimeException e) {
+            // A failing open must not stop the drain from admitting the rest of the tick's requests
+            request.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A menu open waiting for admission.
+     *
+     * @param player         the player to open the menu for
+     * @param id             the menu ID
+     * @param ctx            the menu open context
+     * @param currentSession the session to navigate back to, or null
+     * @param priority       the priority of the open
+     * @param future         completed with the opened session
+     */
+    record OpenRequest(Player player, String id, MenuOpenContextStore ctx, MenuSession currentSession,
+                       MenuOpenPriority priority, CompletableFuture<MenuSession> future) {
+
+        private void playerLeft() {
+            future.completeExceptionally(new IllegalStateException(
+                    "Player " + player.getName() + " left before menu " + id + " could be opened"));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package be.mathijsfollon.betterInterfaces.trace;
+
+import be.mathijsfollon.betterInterfaces.api.MenuOpenContextStore;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records spans of menu interactions into a bounded in-memory ring buffer.
+ *
+ * Every menu flow carries a trace id in its context under {@value #TRACE_ID_KEY}. Menus opened from another
+ * session and menus navigated back to share the trace id of the session they came from, so a multi-step
+ * flow can be reconstructed from its spans after the fact. Once the buffer is full, the oldest spans are overwritten.
+ *
+ * Recording is lock-free and can happen on any thread. Tracing is disabled until {@link #setEnabled(boolean)} turns it on.
+ */
+public class MenuTracer {
+    /**
+     * Context key holding the trace id of a menu flow.
+     */
+    public static final String TRACE_ID_KEY = "trace-id";
+
+    private final AtomicReferenceArray<Span> spans;
+    private final int mask;
+    private final AtomicLong cursor;
+    private final long epochOffsetNanos;
+    private volatile boolean enabled;
+
+    /**
+     * Creates a new MenuTracer.
+     *
+     * @param capacity the number of spans to keep, rounded up to a power of two
+     */
+    public MenuTracer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 24)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 16777216");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.spans = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.cursor = new AtomicLong();
+        this.epochOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+        this.enabled = false;
+    }
+
+    /**
+     * Gets the trace id of a context, assigning a new one if it has none.
+     *
+     * @param context the context
+     * @return the trace id, or null if tracing is disabled
+     */
+    public String trace(MenuOpenContextStore context) {
+        if (!enabled) {
+            return null;
+        }
+        String traceId = traceId(context);
+        if (traceId == null) {
+            traceId = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+            context.put(TRACE_ID_KEY, traceId);
+        }
+        return traceId;
+    }
+
+    /**
+     * Gets the trace id of a context.
+     *
+     * @param context the context (can be null)
+     * @return the trace id, or null if the context is not traced
+     */
+    public static String traceId(MenuOpenContextStore context) {
+        return context != null ? context.get(TRACE_ID_KEY, String.class).orElse(null) : null;
+    }
+
+    /**
+     * Gets the start time for a span.
+     *
+     * @return the current {@link System#nanoTime()}, or 0 if tracing is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records a span that started at the given time and ends now.
+     * Spans of contexts without a trace id, or started while tracing was disabled, are ignored.
+     *
+     * @param context    the context of the menu the span belongs to
+     * @param name       the span name, e.g. "open" or "render"
+     * @param startNanos the start time returned by {@link #start()}
+     */
+    public void record(MenuOpenContextStore context, String name, long startNanos) {
+        if (!enabled || startNanos == 0L) {
+            return;
+        }
+        String traceId = traceId(context);
+        if (traceId == null) {
+            return;
+        }
+
+        long end = System.nanoTime();
+        String menuId = context.get("menu-id", String.class).orElse(null);
+        String player = context.getPlayer().map(Player::getName).orElse(null);
+        Span span = new Span(traceId, name, menuId, player, Thread.currentThread().getName(), startNanos, end - startNanos);
+        spans.set((int) (cursor.getAndIncrement() & mask), span);
+    }
+
+    /**
+     * Gets all spans currently in the buffer, ordered by start time.
+     *
+     * @return the spans
+     */
+    public List<Span> snapshot() {
+        List<Span> result = new ArrayList<>(spans.length());
+        for (int i = 0; i < spans.length(); i++) {
+            Span span = spans.get(i);
+            if (span != null) {
+                result.add(span);
+            }
+        }
+        result.sort(Comparator.comparingLong(Span::startNanos));
+        return result;
+    }
+
+    /**
+     * Writes all spans in the buffer to a file, grouped by trace and ordered by start time.
+     *
+     * @param file the file to write to
+     * @return the number of spans written
+     * @throws IOException if the file cannot be written
+     */
+    public int dump(Path file) throws IOException {
+        List<Span> snapshot = snapshot();
+        Map<String, List<Span>> traces = new LinkedHashMap<>();
+        for (Span span : snapshot) {
+            traces.computeIfAbsent(span.traceId(), k -> new ArrayList<>()).add(span);
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, List<Span>> trace : traces.entrySet()) {
+                List<Span> traceSpans = trace.getValue();
+                Span first = traceSpans.get(0);
+                Span last = traceSpans.get(traceSpans.size() - 1);
+                long totalNanos = last.startNanos() + last.durationNanos() - first.startNanos();
+                writer.write("trace " + trace.getKey() + " player=" + first.player()
+                        + " spans=" + traceSpans.size() + " total=" + micros(totalNanos) + "us\n");
+                for (Span span : traceSpans) {
+                    writer.write("  " + Instant.ofEpochSecond(0, span.startNanos() + epochOffsetNanos)
+                            + " +" + micros(span.startNanos() - first.startNanos()) + "us"
+                            + " " + span.name()
+                            + " menu=" + span.menuId()
+                            + " duration=" + micros(span.durationNanos()) + "us"
+                            + " thread=" + span.thread() + "\n");
+                }
+            }
+        }
+        return snapshot.size();
+    }
+
+    private static String micros(long nanos) {
+        return Long.toString(nanos / 1_000L);
+    }
+
+    /**
+     * Checks if tracing is enabled.
+     *
+     * @return true if spans are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables tracing.
+     *
+     * @param enabled true to record spans
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * A single timed step of a menu flow.
+     *
+     * @param traceId       the trace the span belongs to
+     * @param name          the span name
+     * @param menuId        the id of the menu the span belongs to
+     * @param player        the name of the player
+     * @param thread        the thread that recorded the span
+     * @param startNanos    the start time as {@link System#nanoTime()}
+     * @param durationNanos the duration in nanoseconds
+     */
+    public record Span(String traceId, String name, String menuId, String player, String thread, long startNanos, long durationNanos) {}
+}